@@ -1,27 +1,41 @@
 package app;
 
-import app.repositories.AuthRepository;
-import app.repositories.AccountRepository;
-import app.repositories.TransactionRepository;
+import app.repositories.AuthInterface;
+import app.repositories.AccountInterface;
+import app.repositories.TransactionInterface;
+import app.persistence.DurableStore;
+import app.persistence.JournalConfig;
 import app.services.AuthService;
 import app.services.AccountService;
+import app.services.LedgerEngine;
+import app.services.LedgerInterface;
+import app.services.LedgerPipeline;
+import app.services.TransactionService;
 import app.ui.AuthMenu;
 import app.ui.LoginView;
 import app.ui.RegisterView;
 import app.ui.UserDashboard;
 import app.models.User;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
 
-        // Repositories
-        final AuthRepository authRepository = new AuthRepository();
-        final AccountRepository accountRepository = new AccountRepository();
-        final TransactionRepository transactionRepository = new TransactionRepository();
+        // Repositories durables : dernier snapshot + suffixe du journal, snapshot toutes les 5 minutes
+        final DurableStore store = DurableStore.open(Paths.get("data"), JournalConfig.defaults(), 300);
+        final AuthInterface authRepository = store.getAuthRepository();
+        final AccountInterface accountRepository = store.getAccountRepository();
+        final TransactionInterface transactionRepository = store.getTransactionRepository();
 
-        // Services
+        // Services (un seul registre des soldes, partagé par toutes les opérations)
+        // -Dapp.ledger=pipeline : écrivain unique sur anneau au lieu des verrous striés
+        final LedgerInterface ledger = "pipeline".equals(System.getProperty("app.ledger"))
+                ? new LedgerPipeline(accountRepository, transactionRepository)
+                : new LedgerEngine(accountRepository, transactionRepository);
         final AuthService authService = new AuthService(authRepository);
-        final AccountService accountService = new AccountService(accountRepository, authRepository);
+        final AccountService accountService = new AccountService(accountRepository, authRepository, ledger);
+        final TransactionService transactionService = new TransactionService(transactionRepository, accountRepository, ledger);
 
         final AuthMenu authMenu = new AuthMenu();
         
@@ -34,7 +48,7 @@ public class Main {
                     if(loginView.showLoginDialog()){
                         User user = loginView.getLoggedInUser();
                         authMenu.setUserLoggedIn(true);
-                        UserDashboard dashboard = new UserDashboard(user, authService, accountService, transactionRepository, accountRepository);
+                        UserDashboard dashboard = new UserDashboard(user, loginView.getSessionToken(), authService, accountService, transactionService);
                         dashboard.showDashboard();
                         authMenu.setUserLoggedIn(false);
                     }
@@ -54,6 +68,10 @@ public class Main {
                     System.out.println("Choix invalide !"); 
             }
         }
+        if (ledger instanceof LedgerPipeline) {
+            ((LedgerPipeline) ledger).close();
+        }
+        store.close();
          System.exit(0);
     }
 }
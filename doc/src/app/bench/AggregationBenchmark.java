@@ -0,0 +1,90 @@
+package app.bench;
+
+import app.models.Money;
+import app.models.Transaction;
+import app.models.TransactionType;
+import app.repositories.ColumnarTransactionRepository;
+import app.repositories.ConcurrentAccountRepository;
+import app.repositories.ConcurrentTransactionRepository;
+import app.repositories.TransactionInterface;
+import app.services.AggregateStats;
+import app.services.TransactionAggregator;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Débit (lignes/s) de TransactionAggregator par compte et par jour, de 1 à N threads,
+ * sur le stockage en colonnes et sur ConcurrentTransactionRepository (instantané compris)
+ * Vérifie que chaque mesure retrouve le même total que le calcul séquentiel
+ *
+ * Usage : java app.bench.AggregationBenchmark [lignes]
+ */
+public class AggregationBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int DAYS = 365;
+    private static final int REPEAT = 5;
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        UUID[] accountIds = new UUID[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds[i] = UUID.randomUUID();
+        }
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Transaction> transactions = new ArrayList<>(rows);
+        long expected = 0;
+        for (int i = 0; i < rows; i++) {
+            TransactionType type = random.nextBoolean() ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL;
+            Money montant = type.signed(Money.ofMinor(1 + random.nextInt(100_000)));
+            LocalDateTime date = start.plusSeconds((long) i * DAYS * 86_400 / rows);
+            transactions.add(new Transaction(UUID.randomUUID(), accountIds[random.nextInt(ACCOUNTS)], date, type, montant, null));
+            expected += montant.getMinorUnits();
+        }
+
+        ColumnarTransactionRepository columnar = new ColumnarTransactionRepository();
+        columnar.saveAll(transactions);
+        ConcurrentTransactionRepository concurrent = new ConcurrentTransactionRepository();
+        concurrent.saveAll(transactions);
+
+        run("columnar byAccount", columnar, rows, expected, TransactionAggregator::byAccount);
+        run("columnar byDay", columnar, rows, expected, TransactionAggregator::byDay);
+        run("concurrent byAccount", concurrent, rows, expected, TransactionAggregator::byAccount);
+        run("concurrent byDay", concurrent, rows, expected, TransactionAggregator::byDay);
+    }
+
+    private static void run(String label, TransactionInterface repository, int rows, long expected,
+            Function<TransactionAggregator, Map<?, AggregateStats>> query) {
+        for (int threads : Bench.threadCounts()) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            TransactionAggregator aggregator = new TransactionAggregator(repository, new ConcurrentAccountRepository(), pool);
+            // Échauffement du JIT
+            check(query.apply(aggregator), expected);
+            long begin = System.nanoTime();
+            for (int i = 0; i < REPEAT; i++) {
+                check(query.apply(aggregator), expected);
+            }
+            long elapsed = System.nanoTime() - begin;
+            Bench.printRow(label, threads, (double) rows * REPEAT / (elapsed / 1_000_000_000.0));
+            pool.shutdown();
+        }
+    }
+
+    private static void check(Map<?, AggregateStats> result, long expected) {
+        long total = 0;
+        for (AggregateStats stats : result.values()) {
+            total += stats.getSum().getMinorUnits();
+        }
+        if (total != expected) {
+            throw new IllegalStateException("Total agrégé incorrect: " + total + " au lieu de " + expected);
+        }
+    }
+}
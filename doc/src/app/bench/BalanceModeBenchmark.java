@@ -0,0 +1,63 @@
+package app.bench;
+
+import app.models.Account;
+import app.models.Money;
+import app.repositories.ConcurrentAccountRepository;
+import app.services.LedgerEngine;
+import app.utils.TimeOrderedIdClock;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Contention sur les soldes : LedgerEngine en mode LOCKING contre LOCK_FREE,
+ * de 1 à N threads, sur 1 compte (contention maximale), 16 comptes et 10 000 comptes
+ * Charge : 50% dépôts, 50% retraits, sans historique (seul le chemin du solde est mesuré)
+ *
+ * Usage : java app.bench.BalanceModeBenchmark [opsParThread]
+ */
+public class BalanceModeBenchmark {
+
+    private static final long INITIAL_BALANCE = 1_000_00L;
+
+    public static void main(String[] args) {
+        int opsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        for (int accounts : new int[] {1, 16, 10_000}) {
+            for (LedgerEngine.Mode mode : LedgerEngine.Mode.values()) {
+                ConcurrentAccountRepository accountRepository = new ConcurrentAccountRepository();
+                UUID[] ids = new UUID[accounts];
+                for (int i = 0; i < accounts; i++) {
+                    ids[i] = UUID.randomUUID();
+                    accountRepository.save(new Account(ids[i], UUID.randomUUID(), "Compte Courant", Money.ofMinor(INITIAL_BALANCE)));
+                }
+                LedgerEngine ledger = new LedgerEngine(accountRepository, null, TimeOrderedIdClock.getDefault(),
+                        LedgerEngine.DEFAULT_STRIPES, mode);
+                Money montant = Money.ofMinor(100);
+
+                // Échauffement du JIT
+                run(ledger, ids, montant, 1, opsPerThread / 4);
+
+                String label = mode + " n=" + accounts;
+                for (int threads : Bench.threadCounts()) {
+                    Bench.printRow(label, threads, run(ledger, ids, montant, threads, opsPerThread));
+                }
+            }
+        }
+    }
+
+    private static double run(LedgerEngine ledger, UUID[] ids, Money montant, int threads, int opsPerThread) {
+        return Bench.throughput(threads, opsPerThread, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            UUID accountId = ids[random.nextInt(ids.length)];
+            if (random.nextBoolean()) {
+                ledger.deposit(accountId, montant);
+            } else {
+                try {
+                    ledger.withdraw(accountId, montant);
+                } catch (IllegalStateException e) {
+                    // Solde insuffisant : refusé sans modification
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package app.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntConsumer;
+
+/**
+ * Petit harnais de mesure de débit pour les benchmarks de ce package
+ * (pas de dépendance externe : chaque benchmark est une classe main)
+ */
+public final class Bench {
+
+    private Bench() {
+    }
+
+    /**
+     * Nombres de threads à mesurer : 1, 2, 4... jusqu'au nombre de coeurs (inclus)
+     */
+    public static List<Integer> threadCounts() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(cores);
+        return counts;
+    }
+
+    /**
+     * Lance threads threads qui exécutent chacun opsPerThread fois operation
+     * @param threads Nombre de threads
+     * @param opsPerThread Nombre d'opérations par thread
+     * @param operation Reçoit l'indice du thread
+     * @return Débit total en opérations par seconde
+     */
+    public static double throughput(int threads, int opsPerThread, IntConsumer operation) {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int threadIndex = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        operation.accept(threadIndex);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsed = System.nanoTime() - begin;
+        return (double) threads * opsPerThread / (elapsed / 1_000_000_000.0);
+    }
+
+    public static void printRow(String label, int threads, double opsPerSecond) {
+        System.out.printf("%-32s threads=%-3d %,15.0f ops/s%n", label, threads, opsPerSecond);
+    }
+}
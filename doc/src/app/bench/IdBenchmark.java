@@ -0,0 +1,29 @@
+package app.bench;
+
+import app.utils.TimeOrderedIdClock;
+import java.util.UUID;
+
+/**
+ * Débit de génération d'ids de 1 à N threads : UUID.randomUUID (SecureRandom partagé)
+ * contre TimeOrderedIdClock (horloge par thread + ThreadLocalRandom, aucun état partagé)
+ *
+ * Usage : java app.bench.IdBenchmark [opsParThread]
+ */
+public class IdBenchmark {
+
+    private static volatile UUID sink;
+
+    public static void main(String[] args) {
+        int opsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        TimeOrderedIdClock clock = TimeOrderedIdClock.getDefault();
+
+        // Échauffement du JIT
+        Bench.throughput(1, opsPerThread, thread -> sink = UUID.randomUUID());
+        Bench.throughput(1, opsPerThread, thread -> sink = clock.nextId());
+
+        for (int threads : Bench.threadCounts()) {
+            Bench.printRow("UUID.randomUUID", threads, Bench.throughput(threads, opsPerThread, thread -> sink = UUID.randomUUID()));
+            Bench.printRow("TimeOrderedIdClock.nextId", threads, Bench.throughput(threads, opsPerThread, thread -> sink = clock.nextId()));
+        }
+    }
+}
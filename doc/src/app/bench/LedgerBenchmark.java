@@ -0,0 +1,71 @@
+package app.bench;
+
+import app.models.Account;
+import app.models.Money;
+import app.repositories.ConcurrentAccountRepository;
+import app.repositories.ConcurrentTransactionRepository;
+import app.services.LedgerEngine;
+import app.utils.TimeOrderedIdClock;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Débit des virements de LedgerEngine de 1 à N threads, selon le nombre de comptes touchés
+ * et le nombre de verrous (1 verrou = verrou global, pour comparaison)
+ * Vérifie en fin de mesure que la somme des soldes est conservée
+ *
+ * Usage : java app.bench.LedgerBenchmark [opsParThread]
+ */
+public class LedgerBenchmark {
+
+    private static final long INITIAL_BALANCE = 1_000_000_00L;
+
+    public static void main(String[] args) {
+        int opsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        for (int accounts : new int[] {16, 10_000}) {
+            for (int stripes : new int[] {1, LedgerEngine.DEFAULT_STRIPES}) {
+                ConcurrentAccountRepository accountRepository = new ConcurrentAccountRepository();
+                UUID[] ids = new UUID[accounts];
+                for (int i = 0; i < accounts; i++) {
+                    ids[i] = UUID.randomUUID();
+                    accountRepository.save(new Account(ids[i], UUID.randomUUID(), "Compte Courant", Money.ofMinor(INITIAL_BALANCE)));
+                }
+                LedgerEngine ledger = new LedgerEngine(accountRepository, new ConcurrentTransactionRepository(),
+                        TimeOrderedIdClock.getDefault(), stripes);
+
+                // Échauffement du JIT
+                run(ledger, ids, 1, opsPerThread / 4);
+
+                String label = "transfer n=" + accounts + " stripes=" + stripes;
+                for (int threads : Bench.threadCounts()) {
+                    Bench.printRow(label, threads, run(ledger, ids, threads, opsPerThread));
+                }
+
+                long total = 0;
+                for (UUID id : ids) {
+                    total += ledger.balanceOf(id).getMinorUnits();
+                }
+                if (total != INITIAL_BALANCE * accounts) {
+                    throw new IllegalStateException("Somme des soldes non conservée: " + total);
+                }
+            }
+        }
+    }
+
+    private static double run(LedgerEngine ledger, UUID[] ids, int threads, int opsPerThread) {
+        return Bench.throughput(threads, opsPerThread, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int from = random.nextInt(ids.length);
+            int to = random.nextInt(ids.length - 1);
+            if (to >= from) {
+                to++;
+            }
+            try {
+                ledger.transfer(ids[from], ids[to], Money.ofMinor(1 + random.nextInt(1_000)));
+            } catch (IllegalStateException e) {
+                // Solde insuffisant : l'opération est refusée, rien n'est écrit
+            }
+        });
+    }
+}
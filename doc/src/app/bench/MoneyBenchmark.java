@@ -0,0 +1,67 @@
+package app.bench;
+
+import app.models.Money;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.function.IntFunction;
+
+/**
+ * Comparaison BigDecimal / Money sur le chemin chaud d'un solde : dépôt, contrôle de solde, retrait
+ * Mesure le temps et les octets alloués par opération (thread courant)
+ *
+ * Usage : java app.bench.MoneyBenchmark [iterations]
+ */
+public class MoneyBenchmark {
+
+    // Empêche le JIT d'éliminer les boucles
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        for (int round = 0; round < 3; round++) {
+            boolean warmup = round < 2;
+            report("BigDecimal", iterations, warmup, MoneyBenchmark::bigDecimalLoop);
+            report("Money (long)", iterations, warmup, MoneyBenchmark::moneyLoop);
+        }
+    }
+
+    private static Object bigDecimalLoop(int iterations) {
+        BigDecimal balance = BigDecimal.ZERO.setScale(2);
+        BigDecimal deposit = new BigDecimal("12.34");
+        BigDecimal withdrawal = new BigDecimal("10.01");
+        for (int i = 0; i < iterations; i++) {
+            balance = balance.add(deposit);
+            if (balance.compareTo(withdrawal) >= 0) {
+                balance = balance.subtract(withdrawal);
+            }
+        }
+        return balance;
+    }
+
+    private static Object moneyLoop(int iterations) {
+        Money balance = Money.ZERO;
+        Money deposit = Money.ofMinor(1234);
+        Money withdrawal = Money.ofMinor(1001);
+        for (int i = 0; i < iterations; i++) {
+            balance = balance.add(deposit);
+            if (balance.compareTo(withdrawal) >= 0) {
+                balance = balance.subtract(withdrawal);
+            }
+        }
+        return balance;
+    }
+
+    private static void report(String label, int iterations, boolean warmup, IntFunction<Object> loop) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        sink = loop.apply(iterations);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        if (!warmup) {
+            System.out.printf("%-14s %8.2f ns/op %8.1f octets/op (solde final %s)%n",
+                    label, (double) elapsed / iterations, (double) allocated / iterations, sink);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package app.bench;
+
+import app.models.Account;
+import app.models.Money;
+import app.repositories.ConcurrentAccountRepository;
+import app.repositories.ConcurrentTransactionRepository;
+import app.services.LedgerEngine;
+import app.services.LedgerInterface;
+import app.services.LedgerPipeline;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Débit des virements : LedgerEngine (verrous striés, appel synchrone) contre
+ * LedgerPipeline (anneau à écrivain unique, futures non attendues une à une)
+ * Affiche pour le pipeline la taille moyenne et maximale des lots journalisés
+ *
+ * Usage : java app.bench.PipelineBenchmark [opsParThread]
+ */
+public class PipelineBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final long INITIAL_BALANCE = 1_000_000_00L;
+
+    public static void main(String[] args) {
+        int opsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        for (boolean pipelined : new boolean[] {false, true}) {
+            ConcurrentAccountRepository accountRepository = new ConcurrentAccountRepository();
+            UUID[] ids = new UUID[ACCOUNTS];
+            for (int i = 0; i < ACCOUNTS; i++) {
+                ids[i] = UUID.randomUUID();
+                accountRepository.save(new Account(ids[i], UUID.randomUUID(), "Compte Courant", Money.ofMinor(INITIAL_BALANCE)));
+            }
+            ConcurrentTransactionRepository transactionRepository = new ConcurrentTransactionRepository();
+            LedgerInterface ledger = pipelined
+                    ? new LedgerPipeline(accountRepository, transactionRepository)
+                    : new LedgerEngine(accountRepository, transactionRepository);
+
+            // Échauffement du JIT
+            run(ledger, ids, 1, opsPerThread / 4);
+
+            String label = pipelined ? "LedgerPipeline transfer" : "LedgerEngine transfer";
+            for (int threads : Bench.threadCounts()) {
+                Bench.printRow(label, threads, run(ledger, ids, threads, opsPerThread));
+            }
+            if (pipelined) {
+                LedgerPipeline pipeline = (LedgerPipeline) ledger;
+                pipeline.close();
+                System.out.println("  " + pipeline.getStats());
+            }
+        }
+    }
+
+    private static double run(LedgerInterface ledger, UUID[] ids, int threads, int opsPerThread) {
+        CompletableFuture<?>[] last = new CompletableFuture<?>[threads];
+        long begin = System.nanoTime();
+        Bench.throughput(threads, opsPerThread, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int from = random.nextInt(ids.length);
+            int to = random.nextInt(ids.length - 1);
+            if (to >= from) {
+                to++;
+            }
+            last[thread] = ledger.transferAsync(ids[from], ids[to], Money.ofMinor(1 + random.nextInt(1_000)));
+        });
+        // Les commandes sont traitées dans l'ordre : attendre la dernière de chaque thread suffit
+        for (CompletableFuture<?> future : last) {
+            if (future != null) {
+                future.handle((result, error) -> null).join();
+            }
+        }
+        // Débit mesuré jusqu'à la dernière notification, pas seulement jusqu'à la soumission
+        long elapsed = System.nanoTime() - begin;
+        return (double) threads * opsPerThread / (elapsed / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,79 @@
+package app.bench;
+
+import app.models.Account;
+import app.models.Money;
+import app.models.User;
+import app.persistence.DurableStore;
+import app.persistence.JournalConfig;
+import app.persistence.RecoveryStats;
+import app.repositories.AccountInterface;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Temps de démarrage en fonction de la taille de l'historique
+ *
+ * Historique : N mises à jour de solde sur un ensemble fixe de comptes.
+ * - "rejeu complet" : aucun snapshot, tout le journal est rejoué
+ * - "snapshot + suffixe" : snapshot pris avant les SUFFIX dernières mises à jour
+ * Le second doit rester plat quand N grandit (état vivant constant).
+ *
+ * Usage : java app.bench.RecoveryBenchmark
+ */
+public class RecoveryBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+    private static final int SUFFIX = 10_000;
+
+    public static void main(String[] args) throws IOException {
+        // Pas d'attente de fsync : on mesure la reprise, pas l'écriture
+        JournalConfig config = new JournalConfig(64 * 1024 * 1024, false, 10, 4096);
+        System.out.printf("%12s %22s %22s%n", "historique", "rejeu complet (ms)", "snapshot + suffixe (ms)");
+        for (int history : new int[] { 100_000, 400_000, 1_600_000 }) {
+            double full = measure(config, history, false);
+            double withSnapshot = measure(config, history, true);
+            System.out.printf("%,12d %22.1f %22.1f%n", history, full, withSnapshot);
+        }
+    }
+
+    private static double measure(JournalConfig config, int history, boolean snapshot) throws IOException {
+        Path directory = Files.createTempDirectory("recovery-bench");
+        try {
+            try (DurableStore store = DurableStore.open(directory, config, 0)) {
+                User user = new User(UUID.randomUUID(), "Bench", "bench@bench.io", "-", "secret", new ArrayList<>());
+                store.getAuthRepository().save(user);
+                AccountInterface accounts = store.getAccountRepository();
+                Account[] all = new Account[ACCOUNTS];
+                for (int i = 0; i < ACCOUNTS; i++) {
+                    all[i] = new Account(UUID.randomUUID(), user.getId(), "Compte Courant", Money.ZERO);
+                    accounts.save(all[i]);
+                }
+                for (int i = 0; i < history; i++) {
+                    if (snapshot && i == history - SUFFIX) {
+                        store.snapshot();
+                    }
+                    Account account = all[i % ACCOUNTS];
+                    account.setSolde(account.getSolde().add(Money.ofMinor(100)));
+                    accounts.save(account);
+                }
+            }
+            try (DurableStore store = DurableStore.open(directory, config, 0)) {
+                RecoveryStats stats = store.getRecoveryStats();
+                return stats.getTotalMillis();
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package app.bench;
+
+import app.models.Account;
+import app.models.Money;
+import app.models.Transaction;
+import app.models.User;
+import app.repositories.ConcurrentAccountRepository;
+import app.repositories.ConcurrentAuthRepository;
+import app.repositories.ConcurrentTransactionRepository;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Débit des repositories concurrents de 1 à N threads
+ * Charge mixte : 80% lectures (findById, countByUserId, findLastByAccountId, findByEmail), 20% écritures
+ *
+ * Usage : java app.bench.RepositoryBenchmark [opsParThread]
+ */
+public class RepositoryBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int ACCOUNTS_PER_USER = 3;
+
+    public static void main(String[] args) {
+        int opsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+
+        ConcurrentAuthRepository authRepository = new ConcurrentAuthRepository();
+        ConcurrentAccountRepository accountRepository = new ConcurrentAccountRepository();
+        ConcurrentTransactionRepository transactionRepository = new ConcurrentTransactionRepository();
+
+        User[] users = new User[USERS];
+        Account[] accounts = new Account[USERS * ACCOUNTS_PER_USER];
+        for (int u = 0; u < USERS; u++) {
+            users[u] = new User(UUID.randomUUID(), "User " + u, "user" + u + "@bench.io", "-", "secret", new ArrayList<>());
+            authRepository.save(users[u]);
+            for (int a = 0; a < ACCOUNTS_PER_USER; a++) {
+                Account account = new Account(UUID.randomUUID(), users[u].getId(), "Compte Courant", Money.ZERO);
+                accounts[u * ACCOUNTS_PER_USER + a] = account;
+                accountRepository.save(account);
+            }
+        }
+
+        // Échauffement du JIT
+        run(authRepository, accountRepository, transactionRepository, users, accounts, 1, opsPerThread / 2);
+
+        for (int threads : Bench.threadCounts()) {
+            double opsPerSecond = run(authRepository, accountRepository, transactionRepository, users, accounts, threads, opsPerThread);
+            Bench.printRow("concurrent repositories (80/20)", threads, opsPerSecond);
+        }
+    }
+
+    private static double run(ConcurrentAuthRepository authRepository, ConcurrentAccountRepository accountRepository,
+            ConcurrentTransactionRepository transactionRepository, User[] users, Account[] accounts,
+            int threads, int opsPerThread) {
+        return Bench.throughput(threads, opsPerThread, thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Account account = accounts[random.nextInt(accounts.length)];
+            int operation = random.nextInt(10);
+            switch (operation) {
+                case 0:
+                    transactionRepository.save(new Transaction(UUID.randomUUID(), account.getId(), LocalDateTime.now(ZoneOffset.UTC), Money.ofMinor(100)));
+                    break;
+                case 1:
+                    accountRepository.save(account);
+                    break;
+                case 2:
+                case 3:
+                    accountRepository.countByUserId(account.getUserId());
+                    break;
+                case 4:
+                case 5:
+                    transactionRepository.findLastByAccountId(account.getId(), 10);
+                    break;
+                case 6:
+                case 7:
+                    authRepository.findByEmail(users[random.nextInt(users.length)].getEmail());
+                    break;
+                default:
+                    accountRepository.findById(account.getId());
+            }
+        });
+    }
+}
@@ -1,21 +1,33 @@
 package app.models;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.UUID;
-import java.math.BigDecimal;
 
 public class Account {
     private UUID id;
     private UUID userId; // ← AJOUTER CE CHAMP
     private String type;
-    private BigDecimal solde;
+    // Solde en unités mineures : compteur atomique, modifiable par CAS sans verrou
+    private volatile long soldeMinor;
     private String status = "active";
 
+    private static final VarHandle SOLDE_MINOR;
+
+    static {
+        try {
+            SOLDE_MINOR = MethodHandles.lookup().findVarHandle(Account.class, "soldeMinor", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     // Constructeur modifié
-    public Account(UUID id, UUID userId, String type, BigDecimal solde) {
+    public Account(UUID id, UUID userId, String type, Money solde) {
         this.id = id;
         this.userId = userId;
         this.type = type;
-        this.solde = solde != null ? solde : BigDecimal.ZERO;
+        this.soldeMinor = solde != null ? solde.getMinorUnits() : 0;
         this.status = "active";
     }
 
@@ -43,12 +55,45 @@ public class Account {
         this.type = type;
     }
 
-    public BigDecimal getSolde() {
-        return solde;
+    public Money getSolde() {
+        return Money.ofMinor(soldeMinor);
+    }
+
+    public void setSolde(Money solde) {
+        this.soldeMinor = solde != null ? solde.getMinorUnits() : 0;
+    }
+
+    /**
+     * Crédit atomique sans verrou (boucle CAS)
+     * @return Le nouveau solde
+     * @throws ArithmeticException si le solde dépasse la capacité d'un long
+     */
+    public Money credit(Money montant) {
+        long amount = montant.getMinorUnits();
+        while (true) {
+            long current = soldeMinor;
+            long next = Math.addExact(current, amount);
+            if (SOLDE_MINOR.compareAndSet(this, current, next)) {
+                return Money.ofMinor(next);
+            }
+        }
     }
 
-    public void setSolde(BigDecimal solde) {
-        this.solde = solde != null ? solde : BigDecimal.ZERO;
+    /**
+     * Débit atomique sans verrou : échoue sans rien modifier si le solde deviendrait négatif
+     * @return true si le débit a eu lieu
+     */
+    public boolean tryDebit(Money montant) {
+        long amount = montant.getMinorUnits();
+        while (true) {
+            long current = soldeMinor;
+            if (current < amount) {
+                return false;
+            }
+            if (SOLDE_MINOR.compareAndSet(this, current, current - amount)) {
+                return true;
+            }
+        }
     }
     public String getStatus(){
         return status;
@@ -0,0 +1,145 @@
+package app.models;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+/**
+ * Ensemble compact des ids de comptes d'un utilisateur : deux longs par id, ordre d'insertion conservé
+ *
+ * Recherche en O(1) : balayage direct tant qu'il y a au plus LINEAR_MAX ids (le cas courant,
+ * quelques comptes par utilisateur), table de hachage ouverte au-delà.
+ * Pas thread-safe : User ne modifie jamais un ensemble publié, il le remplace par une copie
+ * modifiée sous son verrou accountIdsLock (copie sur écriture).
+ */
+public final class AccountIdSet extends AbstractSet<UUID> {
+
+    private static final int LINEAR_MAX = 8;
+
+    // [most0, least0, most1, least1, ...] dans l'ordre d'insertion
+    private long[] bits = new long[4];
+    private int size;
+    // Position + 1 de chaque id (0 = vide), null tant que size <= LINEAR_MAX
+    private int[] table;
+
+    public AccountIdSet() {
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof UUID && indexOf((UUID) o) >= 0;
+    }
+
+    @Override
+    public boolean add(UUID accountId) {
+        if (accountId == null || indexOf(accountId) >= 0) {
+            return false;
+        }
+        if (size * 2 == bits.length) {
+            bits = Arrays.copyOf(bits, bits.length * 2);
+        }
+        bits[size * 2] = accountId.getMostSignificantBits();
+        bits[size * 2 + 1] = accountId.getLeastSignificantBits();
+        size++;
+        if (size > LINEAR_MAX) {
+            if (table == null || size * 2 > table.length) {
+                rebuildTable();
+            } else {
+                place(size - 1);
+            }
+        }
+        return true;
+    }
+
+    // Rare (suppression d'un compte) : décalage puis reconstruction de la table
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof UUID)) {
+            return false;
+        }
+        int position = indexOf((UUID) o);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(bits, (position + 1) * 2, bits, position * 2, (size - position - 1) * 2);
+        size--;
+        if (size > LINEAR_MAX) {
+            rebuildTable();
+        } else {
+            table = null;
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<UUID> iterator() {
+        return new Iterator<UUID>() {
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                return position < size;
+            }
+
+            @Override
+            public UUID next() {
+                if (position >= size) {
+                    throw new NoSuchElementException();
+                }
+                UUID accountId = new UUID(bits[position * 2], bits[position * 2 + 1]);
+                position++;
+                return accountId;
+            }
+        };
+    }
+
+    private int indexOf(UUID accountId) {
+        long most = accountId.getMostSignificantBits();
+        long least = accountId.getLeastSignificantBits();
+        if (table == null) {
+            for (int i = 0; i < size; i++) {
+                if (bits[i * 2] == most && bits[i * 2 + 1] == least) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = table.length - 1;
+        for (int slot = hash(most, least) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int position = table[slot] - 1;
+            if (bits[position * 2] == most && bits[position * 2 + 1] == least) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    // Facteur de charge max 1/2
+    private void rebuildTable() {
+        table = new int[Integer.highestOneBit(size * 4 - 1)];
+        for (int i = 0; i < size; i++) {
+            place(i);
+        }
+    }
+
+    private void place(int position) {
+        int mask = table.length - 1;
+        int slot = hash(bits[position * 2], bits[position * 2 + 1]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = position + 1;
+    }
+
+    private static int hash(long most, long least) {
+        long h = most * 0x9E3779B97F4A7C15L ^ least;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,100 @@
+package app.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Montant immuable en centimes (long), pour les soldes et montants de transaction
+ * Les opérations lèvent ArithmeticException en cas de dépassement ;
+ * BigDecimal n'est utilisé qu'aux frontières (saisie, affichage, import)
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private static final int SCALE = 2;
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * @throws ArithmeticException si le montant a plus de 2 décimales ou dépasse la capacité d'un long
+     */
+    public static Money of(BigDecimal amount) {
+        return ofMinor(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    /**
+     * Parse une saisie utilisateur ("50", "50.5", "50.00"), arrondie au centime
+     * @throws NumberFormatException si le format est invalide
+     */
+    public static Money parse(String amount) {
+        return of(new BigDecimal(amount.trim()).setScale(SCALE, RoundingMode.HALF_UP));
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Money add(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money subtract(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minorUnits));
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Money && ((Money) other).minorUnits == minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    // Toujours 2 décimales : "12.30", "-0.05"
+    @Override
+    public String toString() {
+        long absolute = Math.abs(minorUnits);
+        String sign = minorUnits < 0 ? "-" : "";
+        if (absolute < 0) {
+            return toBigDecimal().toPlainString(); // Long.MIN_VALUE
+        }
+        long cents = absolute % 100;
+        return sign + absolute / 100 + "." + (cents < 10 ? "0" : "") + cents;
+    }
+}
@@ -1,6 +1,5 @@
 package app.models;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -8,13 +7,26 @@ public class Transaction {
     private UUID id;
     private UUID accountId;
     private LocalDateTime dateTransaction;
-    private BigDecimal montant;
+    private Money montant;
+    private TransactionType type;
+    // Virements : id de la jambe débit, partagé par les deux jambes (null sinon)
+    private UUID correlationId;
 
-    public  Transaction(UUID id, UUID accountId, LocalDateTime dateTransaction, BigDecimal montant){
+    public  Transaction(UUID id, UUID accountId, LocalDateTime dateTransaction, Money montant){
+        this(id, accountId, dateTransaction, TransactionType.UNKNOWN, montant, null);
+    }
+
+    // Montant signé : négatif pour un débit (retrait, virement sortant), positif pour un crédit
+    public  Transaction(UUID id, UUID accountId, LocalDateTime dateTransaction, TransactionType type, Money montant, UUID correlationId){
+        if (type != TransactionType.UNKNOWN && montant.signum() != type.getSign()) {
+            throw new IllegalArgumentException("Signe du montant incohérent avec le type " + type);
+        }
         this.id = id;
         this.accountId = accountId;
         this.dateTransaction = dateTransaction;
+        this.type = type;
         this.montant = montant;
+        this.correlationId = correlationId;
     }
 
     public  void setId(UUID id){
@@ -29,7 +41,7 @@ public class Transaction {
         this.dateTransaction = dateTransaction;
     }
 
-    public  void setMontant(BigDecimal montant){
+    public  void setMontant(Money montant){
         this.montant = montant;
     }
 
@@ -44,7 +56,23 @@ public class Transaction {
         return dateTransaction;
     }
 
-    public BigDecimal getMontant() {
+    public Money getMontant() {
         return montant;
     }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public void setType(TransactionType type) {
+        this.type = type;
+    }
+
+    public UUID getCorrelationId() {
+        return correlationId;
+    }
+
+    public void setCorrelationId(UUID correlationId) {
+        this.correlationId = correlationId;
+    }
 }
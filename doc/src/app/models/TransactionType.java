@@ -0,0 +1,49 @@
+package app.models;
+
+/**
+ * Nature d'une écriture : le signe du montant en découle (crédit positif, débit négatif)
+ */
+public enum TransactionType {
+    // Enregistrement antérieur aux types : sens inconnu, ignoré par les reconstructions de solde
+    UNKNOWN((byte) 0, 0),
+    DEPOSIT((byte) 1, 1),
+    WITHDRAWAL((byte) 2, -1),
+    TRANSFER_OUT((byte) 3, -1),
+    TRANSFER_IN((byte) 4, 1);
+
+    private static final TransactionType[] BY_CODE = values();
+
+    private final byte code;
+    private final int sign;
+
+    TransactionType(byte code, int sign) {
+        this.code = code;
+        this.sign = sign;
+    }
+
+    // Code sur un octet pour les encodages binaires
+    public byte getCode() {
+        return code;
+    }
+
+    // +1 crédit, -1 débit, 0 inconnu
+    public int getSign() {
+        return sign;
+    }
+
+    public boolean isTransfer() {
+        return this == TRANSFER_OUT || this == TRANSFER_IN;
+    }
+
+    // Montant signé à partir d'un montant positif
+    public Money signed(Money montant) {
+        return sign < 0 ? montant.negate() : montant;
+    }
+
+    public static TransactionType fromCode(byte code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Type de transaction inconnu: " + code);
+        }
+        return BY_CODE[code];
+    }
+}
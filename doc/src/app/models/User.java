@@ -1,8 +1,10 @@
 package app.models;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
 import java.util.UUID;
-import java.util.List;
-import java.util.ArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class User {
     private UUID id;
@@ -10,17 +12,23 @@ public class User {
     private String email;
     private String adress;
     private String password;
-    private boolean loggedIn;
-    private List<Account> accounts;
+    // Ids seulement : les comptes eux-mêmes vivent dans le repository de comptes
+    // Copie sur écriture : un ensemble publié n'est plus modifié, les lectures se font sans verrou
+    // et les écritures (création / suppression de compte concurrentes) sont sérialisées par accountIdsLock
+    private volatile AccountIdSet accountIds;
+    private final ReentrantLock accountIdsLock = new ReentrantLock();
 
-    public User(UUID id, String fullName, String email, String adress, String password, List<Account> accounts) {
+    public User(UUID id, String fullName, String email, String adress, String password, Collection<UUID> accountIds) {
         this.id = id;
         this.fullName = fullName;
         this.email = email;
         this.adress = adress;
         this.password = password;
-        this.accounts = accounts != null ? new ArrayList<>(accounts) : new ArrayList<>();
-        this.loggedIn = false;
+        AccountIdSet ids = new AccountIdSet();
+        if (accountIds != null) {
+            ids.addAll(accountIds);
+        }
+        this.accountIds = ids;
     }
 
     public UUID getId() {
@@ -63,40 +71,46 @@ public class User {
         this.password = password;
     }
 
-    public List<Account> getAccounts() {
-        return new ArrayList<>(accounts);
+    // Vue en lecture seule, sans copie, dans l'ordre de création des comptes (instantané stable)
+    public Set<UUID> getAccountIds() {
+        return Collections.unmodifiableSet(accountIds);
     }
 
-    public void addAccount(Account account) {
-        if (account != null && !accounts.contains(account)) {
-            accounts.add(account);
+    public void addAccount(UUID accountId) {
+        accountIdsLock.lock();
+        try {
+            AccountIdSet ids = new AccountIdSet();
+            ids.addAll(accountIds);
+            if (ids.add(accountId)) {
+                accountIds = ids;
+            }
+        } finally {
+            accountIdsLock.unlock();
         }
     }
 
-    public void removeAccount(Account account) {
-        accounts.remove(account);
+    public void removeAccount(UUID accountId) {
+        accountIdsLock.lock();
+        try {
+            AccountIdSet ids = new AccountIdSet();
+            ids.addAll(accountIds);
+            if (ids.remove(accountId)) {
+                accountIds = ids;
+            }
+        } finally {
+            accountIdsLock.unlock();
+        }
     }
 
-    public Account getAccountById(UUID accountId) {
-        return accounts.stream()
-                .filter(account -> account.getId().equals(accountId))
-                .findFirst()
-                .orElse(null);
+    public boolean hasAccount(UUID accountId) {
+        return accountIds.contains(accountId);
     }
 
     public int getAccountCount() {
-        return accounts.size();
+        return accountIds.size();
     }
 
     public boolean hasAccounts() {
-        return !accounts.isEmpty();
-    }
-
-    public boolean isLoggedIn() {
-        return loggedIn;
-    }
-
-    public void setLoggedIn(boolean loggedIn) {
-        this.loggedIn = loggedIn;
+        return !accountIds.isEmpty();
     }
 }
@@ -0,0 +1,51 @@
+package app.persistence;
+
+import app.models.Account;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Encodage binaire d'un Account : [id 16][userId 16][type][status][solde en centimes 8]
+ * Le type 4 (solde BigDecimal : scale + unscaled) n'est plus relisible : la reprise le refuse
+ */
+public final class AccountCodec {
+
+    public static final byte SAVED_RECORD_TYPE = 7;
+    public static final byte OBSOLETE_SAVED_RECORD_TYPE = 4;
+    public static final byte DELETED_RECORD_TYPE = 5;
+
+    private AccountCodec() {
+    }
+
+    public static byte[] encode(Account account) {
+        byte[] type = Codecs.utf8(account.getType());
+        byte[] status = Codecs.utf8(account.getStatus());
+        ByteBuffer buffer = ByteBuffer.allocate(16 + 16 + Codecs.sizeOf(type) + Codecs.sizeOf(status) + 8);
+        Codecs.putUuid(buffer, account.getId());
+        Codecs.putUuid(buffer, account.getUserId());
+        Codecs.putString(buffer, type);
+        Codecs.putString(buffer, status);
+        Codecs.putMoney(buffer, account.getSolde());
+        return buffer.array();
+    }
+
+    public static Account decode(ByteBuffer buffer) {
+        UUID id = Codecs.getUuid(buffer);
+        UUID userId = Codecs.getUuid(buffer);
+        String type = Codecs.getString(buffer);
+        String status = Codecs.getString(buffer);
+        Account account = new Account(id, userId, type, Codecs.getMoney(buffer));
+        account.setStatus(status);
+        return account;
+    }
+
+    public static byte[] encodeDeletion(UUID accountId) {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        Codecs.putUuid(buffer, accountId);
+        return buffer.array();
+    }
+
+    public static UUID decodeDeletion(ByteBuffer buffer) {
+        return Codecs.getUuid(buffer);
+    }
+}
@@ -0,0 +1,60 @@
+package app.persistence;
+
+import app.models.Money;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Primitives d'encodage partagées par les codecs du journal et des snapshots
+ */
+final class Codecs {
+
+    private Codecs() {
+    }
+
+    static void putUuid(ByteBuffer buffer, UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+    }
+
+    static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    // Taille encodée d'une chaîne : longueur (-1 pour null) + octets UTF-8
+    static int sizeOf(byte[] utf8) {
+        return 4 + (utf8 == null ? 0 : utf8.length);
+    }
+
+    static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static void putString(ByteBuffer buffer, byte[] utf8) {
+        if (utf8 == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(utf8.length);
+        buffer.put(utf8);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void putMoney(ByteBuffer buffer, Money value) {
+        buffer.putLong(value.getMinorUnits());
+    }
+
+    static Money getMoney(ByteBuffer buffer) {
+        return Money.ofMinor(buffer.getLong());
+    }
+}
@@ -0,0 +1,329 @@
+package app.persistence;
+
+import app.models.Account;
+import app.models.User;
+import app.repositories.AccountInterface;
+import app.repositories.AuthInterface;
+import app.repositories.ConcurrentAccountRepository;
+import app.repositories.ConcurrentAuthRepository;
+import app.repositories.ConcurrentTransactionRepository;
+import app.repositories.JournaledAccountRepository;
+import app.repositories.JournaledAuthRepository;
+import app.repositories.JournaledTransactionRepository;
+import app.repositories.TransactionInterface;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.CRC32C;
+
+/**
+ * État durable des trois repositories : un journal commun + des snapshots périodiques
+ *
+ * Snapshot "flou" sans arrêter les écrivains : on lit d'abord la position P du journal
+ * (Journal.fence), puis on parcourt les repositories concurrents pendant que les écritures
+ * continuent. Toute modification postérieure à P est dans le journal, et chaque
+ * enregistrement porte l'état complet de l'entité : rejouer le journal depuis P par-dessus
+ * le snapshot redonne exactement l'état final, même si le snapshot a déjà vu une partie
+ * de ces modifications.
+ *
+ * Démarrage : chargement du dernier snapshot, puis rejeu du seul suffixe du journal.
+ * Les segments antérieurs au dernier snapshot sont supprimés.
+ */
+public class DurableStore implements Closeable {
+
+    private static final long SNAPSHOT_MAGIC = 0x424B534E41503032L; // "BKSNAP02"
+    // Snapshots à montants BigDecimal, illisibles avec les codecs actuels
+    private static final long OBSOLETE_SNAPSHOT_MAGIC = 0x424B534E41503031L; // "BKSNAP01"
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d{20})-(\\d{10})\\.snap");
+
+    private final Path snapshotDirectory;
+    private final Journal journal;
+
+    private final ConcurrentAuthRepository users = new ConcurrentAuthRepository();
+    private final ConcurrentAccountRepository accounts = new ConcurrentAccountRepository();
+    private final ConcurrentTransactionRepository transactions = new ConcurrentTransactionRepository();
+
+    private final AuthInterface authRepository;
+    private final AccountInterface accountRepository;
+    private final TransactionInterface transactionRepository;
+
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+    private final RecoveryStats recoveryStats;
+
+    private DurableStore(Path directory, JournalConfig config, long snapshotIntervalSeconds) throws IOException {
+        this.snapshotDirectory = directory.resolve("snapshots");
+        Files.createDirectories(snapshotDirectory);
+        this.journal = Journal.open(directory.resolve("journal"), config);
+        this.recoveryStats = recover();
+
+        this.authRepository = new JournaledAuthRepository(journal, users);
+        this.accountRepository = new JournaledAccountRepository(journal, accounts);
+        this.transactionRepository = new JournaledTransactionRepository(journal, transactions);
+
+        if (snapshotIntervalSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "snapshot-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Ouvre le stockage du répertoire (journal + snapshots) et recharge l'état
+     * @param snapshotIntervalSeconds Intervalle entre deux snapshots automatiques, 0 pour les désactiver
+     */
+    public static DurableStore open(Path directory, JournalConfig config, long snapshotIntervalSeconds) throws IOException {
+        return new DurableStore(directory, config, snapshotIntervalSeconds);
+    }
+
+    public AuthInterface getAuthRepository() {
+        return authRepository;
+    }
+
+    public AccountInterface getAccountRepository() {
+        return accountRepository;
+    }
+
+    public TransactionInterface getTransactionRepository() {
+        return transactionRepository;
+    }
+
+    public RecoveryStats getRecoveryStats() {
+        return recoveryStats;
+    }
+
+    /**
+     * Écrit un snapshot cohérent sans bloquer les écrivains, puis purge le journal antérieur
+     * @return La position du journal couverte par le snapshot
+     */
+    public JournalPosition snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            JournalPosition position = journal.fence();
+            Path target = snapshotDirectory.resolve(String.format("snapshot-%020d-%010d.snap", position.getSegment(), position.getOffset()));
+            Path temporary = snapshotDirectory.resolve(target.getFileName() + ".tmp");
+            writeSnapshot(temporary, position);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+
+            for (Path previous : listSnapshots()) {
+                if (!previous.equals(target)) {
+                    Files.deleteIfExists(previous);
+                }
+            }
+            journal.deleteSegmentsBefore(position);
+            return position;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        journal.close();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Erreur lors du snapshot: " + e.getMessage());
+        }
+    }
+
+    private void writeSnapshot(Path file, JournalPosition position) throws IOException {
+        try (FileOutputStream output = new FileOutputStream(file.toFile())) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(output, 1 << 16), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeLong(SNAPSHOT_MAGIC);
+            out.writeLong(position.getSegment());
+            out.writeInt(position.getOffset());
+            try {
+                for (User user : users.findAll()) {
+                    writeRecord(out, UserCodec.SAVED_RECORD_TYPE, UserCodec.encode(user));
+                }
+                for (Account account : accounts.findAll()) {
+                    writeRecord(out, AccountCodec.SAVED_RECORD_TYPE, AccountCodec.encode(account));
+                }
+                transactions.forEach(transaction -> writeRecord(out, TransactionCodec.RECORD_TYPE, TransactionCodec.encode(transaction)));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.writeByte(0);
+            out.flush();
+            // Le checksum couvre tout le fichier sauf lui-même
+            ByteBuffer trailer = ByteBuffer.allocate(8).putLong(checked.getChecksum().getValue());
+            output.write(trailer.array());
+            output.getFD().sync();
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, byte type, byte[] payload) {
+        try {
+            out.writeByte(type);
+            out.writeInt(payload.length);
+            out.write(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private RecoveryStats recover() throws IOException {
+        // Utilisateurs dont l'email était pris au moment du chargement (snapshot flou) :
+        // normalement remplacés par un enregistrement plus récent du journal
+        Map<String, User> deferredUsers = new HashMap<>();
+
+        long start = System.nanoTime();
+        long snapshotRecords = 0;
+        JournalPosition from = JournalPosition.START;
+        List<Path> snapshots = listSnapshots();
+        if (!snapshots.isEmpty()) {
+            Path latest = snapshots.get(snapshots.size() - 1);
+            try (InputStream input = new BufferedInputStream(Files.newInputStream(latest), 1 << 16)) {
+                CheckedInputStream checked = new CheckedInputStream(input, new CRC32C());
+                DataInputStream in = new DataInputStream(checked);
+                long magic = in.readLong();
+                if (magic == OBSOLETE_SNAPSHOT_MAGIC) {
+                    throw new IOException("Snapshot au format obsolète (montants BigDecimal): " + latest);
+                }
+                if (magic != SNAPSHOT_MAGIC) {
+                    throw new IOException("Snapshot invalide: " + latest);
+                }
+                from = new JournalPosition(in.readLong(), in.readInt());
+                byte type;
+                while ((type = in.readByte()) != 0) {
+                    byte[] payload = new byte[in.readInt()];
+                    in.readFully(payload);
+                    apply(type, ByteBuffer.wrap(payload), deferredUsers, true);
+                    snapshotRecords++;
+                }
+                long expected = checked.getChecksum().getValue();
+                if (new DataInputStream(input).readLong() != expected) {
+                    throw new IOException("Checksum du snapshot invalide: " + latest);
+                }
+            }
+        }
+        long snapshotNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long[] replayed = { 0 };
+        journal.replay(from, (type, payload, end) -> {
+            apply(type, payload, deferredUsers, false);
+            replayed[0]++;
+        });
+        for (User user : deferredUsers.values()) {
+            saveUser(user, null, false);
+        }
+        linkAccounts();
+        long replayNanos = System.nanoTime() - start;
+
+        // Le journal antérieur au snapshot chargé n'est plus nécessaire
+        journal.deleteSegmentsBefore(from);
+        return new RecoveryStats(snapshotRecords, snapshotNanos, replayed[0], replayNanos, from);
+    }
+
+    private void apply(byte type, ByteBuffer payload, Map<String, User> deferredUsers, boolean fromSnapshot) {
+        switch (type) {
+            case TransactionCodec.RECORD_TYPE:
+                transactions.save(TransactionCodec.decode(payload));
+                break;
+            case UserCodec.SAVED_RECORD_TYPE:
+                saveUser(UserCodec.decode(payload), deferredUsers, fromSnapshot);
+                break;
+            case UserCodec.DELETED_RECORD_TYPE:
+                String userId = UserCodec.decodeDeletion(payload);
+                users.delete(userId);
+                deferredUsers.remove(userId);
+                break;
+            case AccountCodec.SAVED_RECORD_TYPE:
+                accounts.save(AccountCodec.decode(payload));
+                break;
+            case AccountCodec.DELETED_RECORD_TYPE:
+                Account account = accounts.findById(AccountCodec.decodeDeletion(payload));
+                accounts.delete(account);
+                break;
+            case TransactionCodec.OBSOLETE_RECORD_TYPE:
+            case AccountCodec.OBSOLETE_SAVED_RECORD_TYPE:
+                throw new IllegalStateException("Enregistrement au format obsolète (montant BigDecimal), type " + type
+                        + " : ce journal a été écrit par une version antérieure");
+            default:
+                throw new IllegalStateException("Type d'enregistrement inconnu: " + type);
+        }
+    }
+
+    private void saveUser(User user, Map<String, User> deferredUsers, boolean fromSnapshot) {
+        String id = user.getId().toString();
+        try {
+            users.save(user);
+            if (deferredUsers != null) {
+                deferredUsers.remove(id);
+            }
+        } catch (IllegalStateException e) {
+            // Dans le snapshot : conflit dû à la lecture floue, résolu par le journal
+            // Dans le journal : save refusé en direct, ignoré de la même façon
+            if (fromSnapshot) {
+                deferredUsers.put(id, user);
+            }
+        }
+    }
+
+    // Les comptes de chaque utilisateur sont reconstruits à partir de Account.userId
+    private void linkAccounts() {
+        for (Account account : accounts.findAll()) {
+            User user = users.findById(account.getUserId().toString());
+            if (user != null) {
+                user.addAccount(account.getId());
+            }
+        }
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(snapshotDirectory)) {
+            files.forEach(file -> {
+                Matcher matcher = SNAPSHOT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    snapshots.add(file);
+                }
+            });
+        }
+        // Les noms encodent la position du journal sur une largeur fixe : l'ordre lexical suffit
+        snapshots.sort(null);
+        return snapshots;
+    }
+}
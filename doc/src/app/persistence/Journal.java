@@ -0,0 +1,498 @@
+package app.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal append-only découpé en segments de taille fixe, écrits via des FileChannel mappés en mémoire
+ *
+ * Format d'un enregistrement : [longueur int][crc32c int][type byte][payload]
+ * longueur = 1 + taille du payload ; une longueur 0 marque la fin des données du segment
+ * (les segments sont pré-alloués et remplis de zéros).
+ *
+ * Durabilité : un thread dédié regroupe les appends (group commit) et fait un seul force()
+ * pour tout le groupe. Un append n'est acquitté qu'une fois son groupe sur disque.
+ *
+ * Un lot est tout-ou-rien dans le journal : tailles vérifiées et segments suivants mappés avant
+ * d'écrire le premier enregistrement, de sorte qu'un échec ne laisse jamais un préfixe du lot.
+ *
+ * Reprise : à l'ouverture, le journal est relu et tronqué au premier enregistrement
+ * incomplet ou dont le checksum est faux (fin déchirée par un crash) ; la fin du dernier
+ * segment est remise à zéro après ce point. Tout enregistrement acquitté précède forcément
+ * ce point, car il a été forcé avec tous ceux qui le précèdent.
+ */
+public class Journal implements Closeable {
+
+    private static final int HEADER_SIZE = 9;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{20})\\.log");
+    private static final Runnable NO_CHECK = () -> { };
+
+    private final Path directory;
+    private final JournalConfig config;
+
+    // Ordonne check + écriture + application en mémoire des appends
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // Position d'écriture et compteurs de durabilité (partagé avec le flusher)
+    private final ReentrantLock lock = new ReentrantLock();
+    // Signalé quand des enregistrements sont en attente de fsync
+    private final Condition pending = lock.newCondition();
+    // Signalé quand le fsync d'un groupe est terminé
+    private final Condition flushed = lock.newCondition();
+
+    private long currentSegment;
+    private MappedByteBuffer current;
+    // Segments pleins pas encore forcés sur disque
+    private final List<MappedByteBuffer> unflushedSegments = new ArrayList<>();
+
+    private long appendedCount;
+    private long durableCount;
+    private IOException flushFailure;
+    private boolean closed;
+
+    private final Thread flusher;
+
+    // Partagé par les écrivains (append + application en mémoire), exclusif pour fence()
+    private final ReentrantReadWriteLock applyFence = new ReentrantReadWriteLock();
+
+    private Journal(Path directory, JournalConfig config) throws IOException {
+        this.directory = directory;
+        this.config = config;
+        Files.createDirectories(directory);
+        recover();
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Ouvre (ou crée) le journal du répertoire et tronque une éventuelle fin déchirée
+     */
+    public static Journal open(Path directory, JournalConfig config) throws IOException {
+        return new Journal(directory, config);
+    }
+
+    /**
+     * Ajoute un enregistrement ; si la config l'exige, attend qu'il soit sur disque
+     * @return La position juste après l'enregistrement
+     */
+    public JournalPosition append(byte type, byte[] payload) {
+        return append(type, payload, () -> { });
+    }
+
+    /**
+     * Ajoute un enregistrement puis exécute apply (mise à jour de l'état en mémoire)
+     * sans qu'un fence() puisse s'intercaler entre les deux ; attend ensuite le fsync
+     * si la config l'exige
+     */
+    public JournalPosition append(byte type, byte[] payload, Runnable apply) {
+        return appendBatch(type, List.of(payload), NO_CHECK, apply);
+    }
+
+    /**
+     * Comme append, précédé de check : une exception de check annule l'append (rien n'est écrit)
+     */
+    public JournalPosition append(byte type, byte[] payload, Runnable check, Runnable apply) {
+        return appendBatch(type, List.of(payload), check, apply);
+    }
+
+    /**
+     * Ajoute un lot d'enregistrements contigus puis exécute apply une seule fois ;
+     * tout le lot partage un seul fsync
+     */
+    public JournalPosition appendBatch(byte type, List<byte[]> payloads, Runnable apply) {
+        return appendBatch(type, payloads, NO_CHECK, apply);
+    }
+
+    /**
+     * check, écriture puis apply s'exécutent sous le verrou d'append : les mises à jour en mémoire
+     * suivent exactement l'ordre du journal, et la reprise retrouve l'état vu par le processus.
+     * check valide l'écriture avant que le lot soit journalisé (une exception annule tout) ;
+     * apply ne doit alors plus échouer.
+     */
+    public JournalPosition appendBatch(byte type, List<byte[]> payloads, Runnable check, Runnable apply) {
+        long[] sequence = new long[1];
+        JournalPosition end = appendRecords(type, payloads, check, apply, sequence);
+        awaitDurable(sequence[0]);
+        return end;
+    }
+
+    /**
+     * Comme appendBatch, sans attendre le fsync : l'appelant attend plus tard avec awaitDurable,
+     * par exemple après avoir relâché ses propres verrous
+     * @return Numéro de séquence du dernier enregistrement du lot
+     */
+    public long appendBatchDeferred(byte type, List<byte[]> payloads, Runnable check, Runnable apply) {
+        long[] sequence = new long[1];
+        appendRecords(type, payloads, check, apply, sequence);
+        return sequence[0];
+    }
+
+    /**
+     * Attend que l'enregistrement de numéro sequence (et tous ceux qui le précèdent) soit sur disque,
+     * si la config l'exige
+     */
+    public void awaitDurable(long sequence) {
+        if (!config.isSyncOnAppend()) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durableCount < sequence && flushFailure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (durableCount < sequence) {
+                throw new UncheckedIOException("Échec du fsync du journal", flushFailure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private JournalPosition appendRecords(byte type, List<byte[]> payloads, Runnable check, Runnable apply, long[] sequence) {
+        JournalPosition end;
+        applyFence.readLock().lock();
+        try {
+            appendLock.lock();
+            try {
+                check.run();
+                lock.lock();
+                try {
+                    Deque<MappedByteBuffer> segments = reserve(payloads);
+                    for (byte[] payload : payloads) {
+                        sequence[0] = write(type, payload, segments);
+                    }
+                    end = new JournalPosition(currentSegment, current.position());
+                } finally {
+                    lock.unlock();
+                }
+                apply.run();
+            } finally {
+                appendLock.unlock();
+            }
+        } finally {
+            applyFence.readLock().unlock();
+        }
+        return end;
+    }
+
+    /**
+     * Position à partir de laquelle toute modification sera rejouée : tous les
+     * enregistrements qui la précèdent ont déjà été appliqués en mémoire.
+     * Les écrivains ne sont suspendus que le temps de lire la position.
+     */
+    public JournalPosition fence() {
+        applyFence.writeLock().lock();
+        try {
+            return position();
+        } finally {
+            applyFence.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Position de fin actuelle du journal (prochain enregistrement)
+     */
+    public JournalPosition position() {
+        lock.lock();
+        try {
+            return new JournalPosition(currentSegment, current.position());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rejoue les enregistrements depuis from jusqu'à la fin actuelle du journal
+     */
+    public void replay(JournalPosition from, JournalRecordHandler handler) throws IOException {
+        JournalPosition end = position();
+        for (long segment : listSegments()) {
+            if (segment < from.getSegment() || segment > end.getSegment()) {
+                continue;
+            }
+            int offset = segment == from.getSegment() ? from.getOffset() : 0;
+            int limit = segment == end.getSegment() ? end.getOffset() : config.getSegmentSize();
+            ByteBuffer buffer = map(segment, FileChannel.MapMode.READ_ONLY);
+            while (offset + HEADER_SIZE <= limit) {
+                int length = buffer.getInt(offset);
+                if (length <= 0) {
+                    break;
+                }
+                byte type = buffer.get(offset + 8);
+                ByteBuffer payload = buffer.duplicate();
+                payload.limit(offset + 8 + length).position(offset + HEADER_SIZE);
+                offset += 8 + length;
+                handler.onRecord(type, payload.slice().asReadOnlyBuffer(), new JournalPosition(segment, offset));
+            }
+        }
+    }
+
+    /**
+     * Supprime les segments entièrement antérieurs à position (après un snapshot par exemple)
+     */
+    public void deleteSegmentsBefore(JournalPosition position) throws IOException {
+        for (long segment : listSegments()) {
+            if (segment < position.getSegment()) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flushFailure != null) {
+            throw flushFailure;
+        }
+    }
+
+    /**
+     * Vérifie tout le lot avant la moindre écriture (verrou tenu) : journal ouvert, taille de chaque
+     * enregistrement, et mapping des segments sur lesquels le lot va déborder
+     * @return Segments à utiliser, dans l'ordre, à chaque changement de segment du lot
+     */
+    private Deque<MappedByteBuffer> reserve(List<byte[]> payloads) {
+        if (closed) {
+            throw new IllegalStateException("Journal fermé");
+        }
+        int position = current.position();
+        int rolls = 0;
+        for (byte[] payload : payloads) {
+            int recordSize = HEADER_SIZE + payload.length;
+            // 4 octets restent toujours libres pour la longueur 0 de fin de segment
+            if (recordSize > config.getSegmentSize() - 4) {
+                throw new IllegalArgumentException("Enregistrement trop grand: " + payload.length + " octets");
+            }
+            if (position + recordSize > config.getSegmentSize() - 4) {
+                rolls++;
+                position = 0;
+            }
+            position += recordSize;
+        }
+        Deque<MappedByteBuffer> segments = new ArrayDeque<>(rolls);
+        for (int i = 1; i <= rolls; i++) {
+            try {
+                segments.add(map(currentSegment + i, FileChannel.MapMode.READ_WRITE));
+            } catch (IOException e) {
+                // Rien n'est écrit : les segments vides déjà créés sont retirés
+                for (int j = i - 1; j >= 1; j--) {
+                    try {
+                        Files.deleteIfExists(segmentPath(currentSegment + j));
+                    } catch (IOException suppressed) {
+                        e.addSuppressed(suppressed);
+                    }
+                }
+                throw new UncheckedIOException("Impossible de créer le segment " + (currentSegment + i), e);
+            }
+        }
+        return segments;
+    }
+
+    // Écrit un enregistrement déjà vérifié par reserve (verrou tenu) et renvoie son numéro de séquence
+    private long write(byte type, byte[] payload, Deque<MappedByteBuffer> segments) {
+        int recordSize = HEADER_SIZE + payload.length;
+        if (current.position() + recordSize > config.getSegmentSize() - 4) {
+            roll(segments.removeFirst());
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(type);
+        crc.update(payload);
+        current.putInt(1 + payload.length);
+        current.putInt((int) crc.getValue());
+        current.put(type);
+        current.put(payload);
+        appendedCount++;
+        // Réveille le flusher au début d'un groupe ou quand le groupe est plein
+        long waiting = appendedCount - durableCount;
+        if (waiting == 1 || waiting >= config.getGroupCommitMaxRecords()) {
+            pending.signal();
+        }
+        return appendedCount;
+    }
+
+    private void roll(MappedByteBuffer next) {
+        unflushedSegments.add(current);
+        currentSegment++;
+        current = next;
+    }
+
+    // Thread de group commit : un force() pour tous les appends de la fenêtre
+    private void flushLoop() {
+        lock.lock();
+        try {
+            while (!closed || durableCount < appendedCount) {
+                if (durableCount == appendedCount) {
+                    pending.awaitUninterruptibly();
+                    continue;
+                }
+                long remaining = TimeUnit.MILLISECONDS.toNanos(config.getGroupCommitMillis());
+                while (!closed && remaining > 0 && appendedCount - durableCount < config.getGroupCommitMaxRecords()) {
+                    try {
+                        remaining = pending.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        remaining = 0;
+                    }
+                }
+                long target = appendedCount;
+                List<MappedByteBuffer> toForce = new ArrayList<>(unflushedSegments);
+                unflushedSegments.clear();
+                toForce.add(current);
+                IOException failure = null;
+                lock.unlock();
+                try {
+                    for (MappedByteBuffer segment : toForce) {
+                        segment.force();
+                    }
+                } catch (UncheckedIOException e) {
+                    failure = e.getCause();
+                } finally {
+                    lock.lock();
+                }
+                if (failure != null) {
+                    flushFailure = failure;
+                    flushed.signalAll();
+                    return;
+                }
+                durableCount = target;
+                flushed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Parcourt tous les segments, tronque au premier enregistrement invalide
+    private void recover() throws IOException {
+        List<Long> segments = listSegments();
+        if (segments.isEmpty()) {
+            currentSegment = 0;
+            current = map(0, FileChannel.MapMode.READ_WRITE);
+            return;
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            long segment = segments.get(i);
+            MappedByteBuffer buffer = map(segment, FileChannel.MapMode.READ_WRITE);
+            int offset = 0;
+            boolean torn = false;
+            while (true) {
+                if (offset + HEADER_SIZE > config.getSegmentSize() - 4) {
+                    break;
+                }
+                int length = buffer.getInt(offset);
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || offset + 8 + length > config.getSegmentSize() - 4 || !checksumMatches(buffer, offset, length)) {
+                    torn = true;
+                    break;
+                }
+                offset += 8 + length;
+            }
+            boolean last = i == segments.size() - 1;
+            if (torn || last) {
+                // Même après un arrêt propre sur une longueur 0 : avec le mmap, des pages plus loin
+                // dans le segment ont pu atteindre le disque avant celles qui les précèdent, et un
+                // enregistrement valide resté derrière ce point reviendrait à la reprise suivante
+                if (torn || hasDataAfter(buffer, offset)) {
+                    truncate(buffer, offset);
+                }
+                if (torn) {
+                    for (int j = i + 1; j < segments.size(); j++) {
+                        Files.deleteIfExists(segmentPath(segments.get(j)));
+                    }
+                }
+                currentSegment = segment;
+                current = buffer;
+                current.position(offset);
+                return;
+            }
+        }
+    }
+
+    private boolean checksumMatches(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer record = buffer.duplicate();
+        record.limit(offset + 8 + length).position(offset + 8);
+        CRC32C crc = new CRC32C();
+        crc.update(record);
+        return (int) crc.getValue() == buffer.getInt(offset + 4);
+    }
+
+    private boolean hasDataAfter(ByteBuffer buffer, int offset) {
+        for (int i = offset; i < config.getSegmentSize(); i++) {
+            if (buffer.get(i) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Efface la fin du segment pour que les relectures suivantes s'arrêtent au bon endroit
+    private void truncate(MappedByteBuffer buffer, int offset) {
+        for (int i = offset; i < config.getSegmentSize(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.force();
+    }
+
+    private MappedByteBuffer map(long segment, FileChannel.MapMode mode) throws IOException {
+        Path path = segmentPath(segment);
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[] { StandardOpenOption.READ }
+                : new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE };
+        // Le mapping reste valide après la fermeture du channel
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return channel.map(mode, 0, config.getSegmentSize());
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("segment-%020d.log", segment));
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        segments.sort(null);
+        return segments;
+    }
+}
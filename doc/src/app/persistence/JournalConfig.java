@@ -0,0 +1,50 @@
+package app.persistence;
+
+/**
+ * Paramètres du journal
+ */
+public class JournalConfig {
+
+    // Taille de chaque segment (fichier pré-alloué et mappé en mémoire)
+    private final int segmentSize;
+    // true : chaque append attend que son enregistrement soit sur disque (fsync groupé)
+    private final boolean syncOnAppend;
+    // Fenêtre de regroupement : un fsync couvre tous les appends reçus pendant cette durée
+    private final long groupCommitMillis;
+    // Un fsync est déclenché sans attendre la fin de la fenêtre au-delà de ce nombre d'enregistrements
+    private final int groupCommitMaxRecords;
+
+    public JournalConfig(int segmentSize, boolean syncOnAppend, long groupCommitMillis, int groupCommitMaxRecords) {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("Taille de segment trop petite: " + segmentSize);
+        }
+        if (groupCommitMillis < 0 || groupCommitMaxRecords < 1) {
+            throw new IllegalArgumentException("Paramètres de group commit invalides");
+        }
+        this.segmentSize = segmentSize;
+        this.syncOnAppend = syncOnAppend;
+        this.groupCommitMillis = groupCommitMillis;
+        this.groupCommitMaxRecords = groupCommitMaxRecords;
+    }
+
+    // 64 Mo par segment, fsync groupé toutes les 2 ms ou tous les 256 enregistrements
+    public static JournalConfig defaults() {
+        return new JournalConfig(64 * 1024 * 1024, true, 2, 256);
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public boolean isSyncOnAppend() {
+        return syncOnAppend;
+    }
+
+    public long getGroupCommitMillis() {
+        return groupCommitMillis;
+    }
+
+    public int getGroupCommitMaxRecords() {
+        return groupCommitMaxRecords;
+    }
+}
@@ -0,0 +1,50 @@
+package app.persistence;
+
+/**
+ * Position dans le journal : numéro de segment + offset dans le segment
+ */
+public final class JournalPosition implements Comparable<JournalPosition> {
+
+    public static final JournalPosition START = new JournalPosition(0, 0);
+
+    private final long segment;
+    private final int offset;
+
+    public JournalPosition(long segment, int offset) {
+        this.segment = segment;
+        this.offset = offset;
+    }
+
+    public long getSegment() {
+        return segment;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public int compareTo(JournalPosition other) {
+        int bySegment = Long.compare(segment, other.segment);
+        return bySegment != 0 ? bySegment : Integer.compare(offset, other.offset);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof JournalPosition)) {
+            return false;
+        }
+        JournalPosition position = (JournalPosition) other;
+        return segment == position.segment && offset == position.offset;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(segment) * 31 + offset;
+    }
+
+    @Override
+    public String toString() {
+        return segment + ":" + offset;
+    }
+}
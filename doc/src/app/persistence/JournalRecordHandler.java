@@ -0,0 +1,16 @@
+package app.persistence;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reçoit les enregistrements lors du rejeu du journal
+ */
+@FunctionalInterface
+public interface JournalRecordHandler {
+    /**
+     * @param type Type de l'enregistrement
+     * @param payload Contenu (lecture seule, valide uniquement pendant l'appel)
+     * @param end Position juste après cet enregistrement
+     */
+    void onRecord(byte type, ByteBuffer payload, JournalPosition end);
+}
@@ -0,0 +1,51 @@
+package app.persistence;
+
+/**
+ * Mesures de la dernière reprise au démarrage
+ */
+public final class RecoveryStats {
+
+    private final long snapshotRecords;
+    private final long snapshotNanos;
+    private final long replayedRecords;
+    private final long replayNanos;
+    private final JournalPosition replayedFrom;
+
+    RecoveryStats(long snapshotRecords, long snapshotNanos, long replayedRecords, long replayNanos, JournalPosition replayedFrom) {
+        this.snapshotRecords = snapshotRecords;
+        this.snapshotNanos = snapshotNanos;
+        this.replayedRecords = replayedRecords;
+        this.replayNanos = replayNanos;
+        this.replayedFrom = replayedFrom;
+    }
+
+    public long getSnapshotRecords() {
+        return snapshotRecords;
+    }
+
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    public double getSnapshotMillis() {
+        return snapshotNanos / 1_000_000.0;
+    }
+
+    public double getReplayMillis() {
+        return replayNanos / 1_000_000.0;
+    }
+
+    public double getTotalMillis() {
+        return (snapshotNanos + replayNanos) / 1_000_000.0;
+    }
+
+    public JournalPosition getReplayedFrom() {
+        return replayedFrom;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("snapshot: %d enregistrements en %.1f ms, journal: %d enregistrements rejoués depuis %s en %.1f ms",
+                snapshotRecords, getSnapshotMillis(), replayedRecords, replayedFrom, getReplayMillis());
+    }
+}
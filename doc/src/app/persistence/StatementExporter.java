@@ -0,0 +1,427 @@
+package app.persistence;
+
+import app.models.Money;
+import app.models.Transaction;
+import app.models.TransactionType;
+import app.repositories.TransactionInterface;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Export des relevés de compte, par ordre chronologique, en CSV ou en binaire compact
+ *
+ * - l'historique est lu page par page (streamByAccountId) et encodé directement dans un
+ *   tampon direct de 64 Ko par thread, vidé dans un FileChannel : mémoire constante,
+ *   quelle que soit la longueur de l'historique
+ * - chaque fichier est écrit à côté de sa cible puis renommé atomiquement
+ * - plusieurs comptes s'exportent en parallèle ; un relevé combiné concatène les parties
+ *   avec FileChannel.transferTo (copie faite par le noyau, sans passer par le tas)
+ *
+ * Format binaire : [magic 4][accountId 16] puis par transaction
+ * [type 1, bit 0x80 si corrélation][id 16][date en microsecondes epoch UTC 8][montant signé 8][correlationId 16 ?]
+ * puis [0xFF][nombre de transactions 8][crc32c de tout ce qui précède 4]
+ */
+public class StatementExporter {
+
+    public enum Format {
+        CSV(".csv"),
+        BINARY(".stmt");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final int PAGE_SIZE = 1024;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Plus grande ligne CSV ou binaire possible
+    private static final int MAX_ROW = 256;
+
+    private static final int BINARY_MAGIC = 0x53544D31; // "STM1"
+    private static final byte CORRELATED = (byte) 0x80;
+    private static final byte END_OF_ROWS = (byte) 0xFF;
+
+    private static final byte[] CSV_HEADER = "id,accountId,date,type,montant,correlationId\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] TYPE_NAMES = new byte[TransactionType.values().length][];
+    private static final LocalDateTime EPOCH = LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC);
+
+    static {
+        for (TransactionType type : TransactionType.values()) {
+            TYPE_NAMES[type.ordinal()] = type.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    // Un tampon direct par thread, réutilisé d'un export à l'autre
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private final TransactionInterface transactionRepository;
+
+    public StatementExporter(TransactionInterface transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * @return Nombre de transactions exportées
+     */
+    public long export(UUID accountId, Path target, Format format) throws IOException {
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        long count;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            count = write(accountId, channel, format, true);
+            channel.force(false);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return count;
+    }
+
+    /**
+     * Un fichier par compte dans directory (accountId + extension), exportés en parallèle
+     * @return Fichier produit pour chaque compte, dans l'ordre reçu
+     */
+    public Map<UUID, Path> exportAll(Collection<UUID> accountIds, Path directory, Format format) throws IOException {
+        Files.createDirectories(directory);
+        Map<UUID, Path> files = new ConcurrentHashMap<>();
+        try {
+            accountIds.parallelStream().distinct().forEach(accountId -> {
+                Path target = directory.resolve(accountId + format.getExtension());
+                try {
+                    export(accountId, target, format);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                files.put(accountId, target);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Map<UUID, Path> ordered = new LinkedHashMap<>();
+        for (UUID accountId : accountIds) {
+            ordered.put(accountId, files.get(accountId));
+        }
+        return ordered;
+    }
+
+    /**
+     * Relevé unique de plusieurs comptes : les parties sont exportées en parallèle puis
+     * concaténées dans l'ordre avec transferTo (une seule ligne d'en-tête en CSV ;
+     * en binaire, une suite de relevés complets)
+     * @return Nombre total de transactions exportées
+     */
+    public long exportCombined(List<UUID> accountIds, Path target, Format format) throws IOException {
+        Path parts = Files.createTempDirectory(target.toAbsolutePath().getParent(), "statement-");
+        try {
+            long[] counts = new long[accountIds.size()];
+            List<Path> partFiles = new ArrayList<>(accountIds.size());
+            for (int i = 0; i < accountIds.size(); i++) {
+                partFiles.add(parts.resolve(i + format.getExtension()));
+            }
+            try {
+                java.util.stream.IntStream.range(0, accountIds.size()).parallel().forEach(i -> {
+                    try (FileChannel channel = FileChannel.open(partFiles.get(i), StandardOpenOption.CREATE_NEW,
+                            StandardOpenOption.WRITE)) {
+                        counts[i] = write(accountIds.get(i), channel, format, false);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            long total = 0;
+            try (FileChannel output = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                if (format == Format.CSV) {
+                    output.write(ByteBuffer.wrap(CSV_HEADER));
+                }
+                for (int i = 0; i < partFiles.size(); i++) {
+                    try (FileChannel input = FileChannel.open(partFiles.get(i), StandardOpenOption.READ)) {
+                        long size = input.size();
+                        long position = 0;
+                        while (position < size) {
+                            position += input.transferTo(position, size - position, output);
+                        }
+                    }
+                    total += counts[i];
+                }
+                output.force(false);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return total;
+        } finally {
+            try (Stream<Path> files = Files.list(parts)) {
+                for (Iterator<Path> it = files.iterator(); it.hasNext();) {
+                    Files.deleteIfExists(it.next());
+                }
+            }
+            Files.deleteIfExists(parts);
+        }
+    }
+
+    /**
+     * Relit un fichier binaire (un ou plusieurs relevés concaténés) en vérifiant chaque checksum
+     * Les checksums de tout le fichier sont vérifiés avant de décoder la moindre ligne :
+     * un fichier corrompu ne transmet aucune transaction au consommateur
+     * @return Nombre de transactions lues
+     */
+    public static long readBinary(Path file, Consumer<Transaction> consumer) throws IOException {
+        ByteBuffer buffer = BUFFERS.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Première passe : structure et checksums seulement, les lignes sont sautées
+            long total = scanBinary(file, channel, buffer, null);
+            channel.position(0);
+            scanBinary(file, channel, buffer, consumer);
+            return total;
+        }
+    }
+
+    // Parcourt tous les relevés du fichier ; les lignes sont décodées seulement si consumer est fourni
+    private static long scanBinary(Path file, FileChannel channel, ByteBuffer buffer, Consumer<Transaction> consumer)
+            throws IOException {
+        buffer.clear().limit(0);
+        CRC32C crc = new CRC32C();
+        long total = 0;
+        while (fill(channel, buffer, 1)) {
+            crc.reset();
+            require(channel, buffer, 4 + 16, crc);
+            if (buffer.getInt() != BINARY_MAGIC) {
+                throw new IOException("Relevé binaire invalide: " + file);
+            }
+            UUID accountId = new UUID(buffer.getLong(), buffer.getLong());
+            long count = 0;
+            while (true) {
+                require(channel, buffer, 1, crc);
+                byte flags = buffer.get();
+                if (flags == END_OF_ROWS) {
+                    break;
+                }
+                boolean correlated = (flags & CORRELATED) != 0;
+                int length = 32 + (correlated ? 16 : 0);
+                require(channel, buffer, length, crc);
+                if (consumer == null) {
+                    buffer.position(buffer.position() + length);
+                } else {
+                    UUID id = new UUID(buffer.getLong(), buffer.getLong());
+                    long micros = buffer.getLong();
+                    Money montant = Money.ofMinor(buffer.getLong());
+                    UUID correlationId = correlated ? new UUID(buffer.getLong(), buffer.getLong()) : null;
+                    LocalDateTime date = LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                            (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+                    consumer.accept(new Transaction(id, accountId, date, TransactionType.fromCode((byte) (flags & ~CORRELATED)),
+                            montant, correlationId));
+                }
+                count++;
+            }
+            long expected = crc.getValue();
+            if (!fill(channel, buffer, 12) || buffer.getLong() != count || (buffer.getInt() & 0xFFFFFFFFL) != expected) {
+                throw new IOException("Checksum du relevé invalide: " + file);
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    private long write(UUID accountId, FileChannel channel, Format format, boolean header) throws IOException {
+        ByteBuffer buffer = BUFFERS.get();
+        buffer.clear();
+        CRC32C crc = new CRC32C();
+        if (format == Format.CSV) {
+            if (header) {
+                buffer.put(CSV_HEADER);
+            }
+        } else {
+            buffer.putInt(BINARY_MAGIC);
+            buffer.putLong(accountId.getMostSignificantBits());
+            buffer.putLong(accountId.getLeastSignificantBits());
+        }
+        long count = 0;
+        try (Stream<Transaction> transactions = transactionRepository.streamByAccountId(accountId, PAGE_SIZE)) {
+            for (Iterator<Transaction> it = transactions.iterator(); it.hasNext();) {
+                if (buffer.remaining() < MAX_ROW) {
+                    flush(channel, buffer, crc);
+                }
+                if (format == Format.CSV) {
+                    putCsvRow(buffer, it.next());
+                } else {
+                    putBinaryRow(buffer, it.next());
+                }
+                count++;
+            }
+        }
+        if (format == Format.BINARY) {
+            if (buffer.remaining() < 1) {
+                flush(channel, buffer, crc);
+            }
+            buffer.put(END_OF_ROWS);
+            flush(channel, buffer, crc);
+            buffer.putLong(count);
+            buffer.putInt((int) crc.getValue());
+        }
+        flush(channel, buffer, null);
+        return count;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer, CRC32C crc) throws IOException {
+        buffer.flip();
+        if (crc != null) {
+            crc.update(buffer.duplicate());
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void putBinaryRow(ByteBuffer buffer, Transaction transaction) {
+        UUID correlationId = transaction.getCorrelationId();
+        byte code = transaction.getType().getCode();
+        buffer.put(correlationId != null ? (byte) (code | CORRELATED) : code);
+        buffer.putLong(transaction.getId().getMostSignificantBits());
+        buffer.putLong(transaction.getId().getLeastSignificantBits());
+        buffer.putLong(ChronoUnit.MICROS.between(EPOCH, transaction.getDateTransaction()));
+        buffer.putLong(transaction.getMontant().getMinorUnits());
+        if (correlationId != null) {
+            buffer.putLong(correlationId.getMostSignificantBits());
+            buffer.putLong(correlationId.getLeastSignificantBits());
+        }
+    }
+
+    // Encodage ASCII direct dans le tampon : aucune chaîne intermédiaire par ligne
+    private static void putCsvRow(ByteBuffer buffer, Transaction transaction) {
+        putUuid(buffer, transaction.getId());
+        buffer.put((byte) ',');
+        putUuid(buffer, transaction.getAccountId());
+        buffer.put((byte) ',');
+        putDate(buffer, transaction.getDateTransaction());
+        buffer.put((byte) ',');
+        buffer.put(TYPE_NAMES[transaction.getType().ordinal()]);
+        buffer.put((byte) ',');
+        putAmount(buffer, transaction.getMontant().getMinorUnits());
+        buffer.put((byte) ',');
+        if (transaction.getCorrelationId() != null) {
+            putUuid(buffer, transaction.getCorrelationId());
+        }
+        buffer.put((byte) '\n');
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID uuid) {
+        putHex(buffer, uuid.getMostSignificantBits() >>> 32, 8);
+        buffer.put((byte) '-');
+        putHex(buffer, uuid.getMostSignificantBits() >>> 16, 4);
+        buffer.put((byte) '-');
+        putHex(buffer, uuid.getMostSignificantBits(), 4);
+        buffer.put((byte) '-');
+        putHex(buffer, uuid.getLeastSignificantBits() >>> 48, 4);
+        buffer.put((byte) '-');
+        putHex(buffer, uuid.getLeastSignificantBits(), 12);
+    }
+
+    private static void putHex(ByteBuffer buffer, long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            buffer.put(HEX[(int) (value >>> shift) & 0xF]);
+        }
+    }
+
+    // yyyy-MM-ddTHH:mm:ss.SSSSSS
+    private static void putDate(ByteBuffer buffer, LocalDateTime date) {
+        putDigits(buffer, date.getYear(), 4);
+        buffer.put((byte) '-');
+        putDigits(buffer, date.getMonthValue(), 2);
+        buffer.put((byte) '-');
+        putDigits(buffer, date.getDayOfMonth(), 2);
+        buffer.put((byte) 'T');
+        putDigits(buffer, date.getHour(), 2);
+        buffer.put((byte) ':');
+        putDigits(buffer, date.getMinute(), 2);
+        buffer.put((byte) ':');
+        putDigits(buffer, date.getSecond(), 2);
+        buffer.put((byte) '.');
+        putDigits(buffer, date.getNano() / 1000, 6);
+    }
+
+    private static void putDigits(ByteBuffer buffer, long value, int digits) {
+        long divisor = 1;
+        for (int i = 1; i < digits; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + (value / divisor) % 10));
+        }
+    }
+
+    // Même rendu que Money.toString : "12.30", "-0.05"
+    private static void putAmount(ByteBuffer buffer, long minorUnits) {
+        if (minorUnits == Long.MIN_VALUE) {
+            buffer.put(Money.ofMinor(minorUnits).toString().getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        if (minorUnits < 0) {
+            buffer.put((byte) '-');
+            minorUnits = -minorUnits;
+        }
+        long units = minorUnits / 100;
+        int length = 1;
+        for (long rest = units / 10; rest > 0; rest /= 10) {
+            length++;
+        }
+        putDigits(buffer, units, length);
+        buffer.put((byte) '.');
+        putDigits(buffer, minorUnits % 100, 2);
+    }
+
+    // Garantit n octets lisibles dans le tampon ; false si la fin du fichier est atteinte avant
+    private static boolean fill(FileChannel channel, ByteBuffer buffer, int n) throws IOException {
+        if (buffer.remaining() >= n) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < n) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return buffer.remaining() >= n;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    // Comme fill, mais la fin de fichier est une erreur ; les n octets sont ajoutés au checksum
+    private static void require(FileChannel channel, ByteBuffer buffer, int n, CRC32C crc) throws IOException {
+        if (!fill(channel, buffer, n)) {
+            throw new IOException("Relevé binaire tronqué");
+        }
+        ByteBuffer covered = buffer.duplicate();
+        covered.limit(covered.position() + n);
+        crc.update(covered);
+    }
+}
@@ -0,0 +1,55 @@
+package app.persistence;
+
+import app.models.Money;
+import app.models.Transaction;
+import app.models.TransactionType;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Encodage binaire d'une Transaction pour le journal
+ * [id 16][accountId 16][date en microsecondes epoch UTC 8][type 1][montant signé en centimes 8]
+ * suivi de [correlationId 16] pour les virements uniquement : 49 ou 65 octets
+ *
+ * Le type 1 (premier format, montant BigDecimal) n'est plus relisible : la reprise le refuse
+ */
+public final class TransactionCodec {
+
+    public static final byte RECORD_TYPE = 6;
+    public static final byte OBSOLETE_RECORD_TYPE = 1;
+
+    private static final LocalDateTime EPOCH = LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC);
+
+    private TransactionCodec() {
+    }
+
+    public static byte[] encode(Transaction transaction) {
+        TransactionType type = transaction.getType();
+        boolean correlated = type.isTransfer() && transaction.getCorrelationId() != null;
+        ByteBuffer buffer = ByteBuffer.allocate(16 + 16 + 8 + 1 + 8 + (correlated ? 16 : 0));
+        Codecs.putUuid(buffer, transaction.getId());
+        Codecs.putUuid(buffer, transaction.getAccountId());
+        buffer.putLong(ChronoUnit.MICROS.between(EPOCH, transaction.getDateTransaction()));
+        buffer.put(type.getCode());
+        Codecs.putMoney(buffer, transaction.getMontant());
+        if (correlated) {
+            Codecs.putUuid(buffer, transaction.getCorrelationId());
+        }
+        return buffer.array();
+    }
+
+    public static Transaction decode(ByteBuffer buffer) {
+        UUID id = Codecs.getUuid(buffer);
+        UUID accountId = Codecs.getUuid(buffer);
+        long micros = buffer.getLong();
+        LocalDateTime date = LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+        TransactionType type = TransactionType.fromCode(buffer.get());
+        Money montant = Codecs.getMoney(buffer);
+        UUID correlationId = buffer.remaining() >= 16 ? Codecs.getUuid(buffer) : null;
+        return new Transaction(id, accountId, date, type, montant, correlationId);
+    }
+}
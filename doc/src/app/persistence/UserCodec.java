@@ -0,0 +1,54 @@
+package app.persistence;
+
+import app.models.User;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.UUID;
+
+/**
+ * Encodage binaire d'un User : [id 16][fullName][email][adress][password]
+ * Les comptes ne sont pas encodés : ils sont rattachés via Account.userId à la reprise,
+ * et l'état de connexion n'est pas persisté.
+ */
+public final class UserCodec {
+
+    public static final byte SAVED_RECORD_TYPE = 2;
+    public static final byte DELETED_RECORD_TYPE = 3;
+
+    private UserCodec() {
+    }
+
+    public static byte[] encode(User user) {
+        byte[] fullName = Codecs.utf8(user.getFullName());
+        byte[] email = Codecs.utf8(user.getEmail());
+        byte[] adress = Codecs.utf8(user.getAdress());
+        byte[] password = Codecs.utf8(user.getPassword());
+        ByteBuffer buffer = ByteBuffer.allocate(16 + Codecs.sizeOf(fullName) + Codecs.sizeOf(email)
+                + Codecs.sizeOf(adress) + Codecs.sizeOf(password));
+        Codecs.putUuid(buffer, user.getId());
+        Codecs.putString(buffer, fullName);
+        Codecs.putString(buffer, email);
+        Codecs.putString(buffer, adress);
+        Codecs.putString(buffer, password);
+        return buffer.array();
+    }
+
+    public static User decode(ByteBuffer buffer) {
+        UUID id = Codecs.getUuid(buffer);
+        String fullName = Codecs.getString(buffer);
+        String email = Codecs.getString(buffer);
+        String adress = Codecs.getString(buffer);
+        String password = Codecs.getString(buffer);
+        return new User(id, fullName, email, adress, password, new ArrayList<>());
+    }
+
+    public static byte[] encodeDeletion(String userId) {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        Codecs.putUuid(buffer, UUID.fromString(userId));
+        return buffer.array();
+    }
+
+    public static String decodeDeletion(ByteBuffer buffer) {
+        return Codecs.getUuid(buffer).toString();
+    }
+}
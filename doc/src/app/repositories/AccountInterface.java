@@ -1,14 +1,45 @@
 package app.repositories;
 
 import app.models.Account;
+import app.models.Money;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public interface AccountInterface {
     void save(Account account);
+    // Écriture groupée : les implémentations amortissent index, verrous et flush sur tout le lot
+    default void saveAll(List<Account> accounts) {
+        for (Account account : accounts) {
+            save(account);
+        }
+    }
     Account findById(UUID id);
     List<Account> findAll();
     List<Account> findByUserId(UUID userId);
+    int countByUserId(UUID userId);
+    boolean existsByUserId(UUID userId);
     void delete(Account account);
     boolean existsById(UUID id);
+
+    // Solde modifié sans save (crédit/débit atomique) : met à jour les index dérivés du solde
+    default void onBalanceChanged(Account account) {
+    }
+
+    // Les n comptes aux soldes les plus élevés, du plus haut au plus bas (par défaut : tri complet)
+    default List<Account> findTopByBalance(int n) {
+        return findAll().stream()
+                .sorted(Comparator.comparing(Account::getSolde).reversed())
+                .limit(Math.max(0, n))
+                .collect(Collectors.toList());
+    }
+
+    // Comptes dont le solde est dans [min, max], par solde croissant (par défaut : tri complet)
+    default List<Account> findByBalanceBetween(Money min, Money max) {
+        return findAll().stream()
+                .filter(account -> account.getSolde().compareTo(min) >= 0 && account.getSolde().compareTo(max) <= 0)
+                .sorted(Comparator.comparing(Account::getSolde))
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
@@ -1,15 +1,32 @@
 package app.repositories;
 
 import app.models.Account;
+import app.models.Money;
 import java.util.*;
 
 public class AccountRepository implements AccountInterface {
     private Map<UUID, Account> accounts = new HashMap<>();
+
+    // Index secondaire userId -> comptes, maintenu par save/delete
+    private Map<UUID, Map<UUID, Account>> accountsByUser = new HashMap<>();
+    // userId sous lequel chaque compte est indexé (le compte peut changer de propriétaire)
+    private Map<UUID, UUID> indexedUserIds = new HashMap<>();
+    // Index ordonné par solde (top N, plages de solde)
+    private BalanceIndex balanceIndex = new BalanceIndex();
     
     @Override
     public void save(Account account) {
         if (account != null && account.getId() != null) {
             accounts.put(account.getId(), account);
+            reindex(account);
+            balanceIndex.update(account);
+        }
+    }
+
+    @Override
+    public void onBalanceChanged(Account account) {
+        if (account != null && accounts.get(account.getId()) == account) {
+            balanceIndex.update(account);
         }
     }
     
@@ -25,13 +42,30 @@ public class AccountRepository implements AccountInterface {
     
     @Override
     public List<Account> findByUserId(UUID userId) {
-        return accounts.values().stream().filter(account -> account.getUserId() != null && account.getUserId().equals(userId)).collect(java.util.stream.Collectors.toList());
+        Map<UUID, Account> userAccounts = accountsByUser.get(userId);
+        if (userAccounts == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(userAccounts.values());
+    }
+
+    @Override
+    public int countByUserId(UUID userId) {
+        Map<UUID, Account> userAccounts = accountsByUser.get(userId);
+        return userAccounts == null ? 0 : userAccounts.size();
+    }
+
+    @Override
+    public boolean existsByUserId(UUID userId) {
+        return accountsByUser.containsKey(userId);
     }
     
     @Override
     public void delete(Account account) {
         if (account != null && account.getId() != null) {
             accounts.remove(account.getId());
+            unindex(account.getId());
+            balanceIndex.remove(account.getId());
         }
     }
     
@@ -39,4 +73,52 @@ public class AccountRepository implements AccountInterface {
     public boolean existsById(UUID id) {
         return accounts.containsKey(id);
     }
+
+    @Override
+    public List<Account> findTopByBalance(int n) {
+        return resolve(balanceIndex.top(n));
+    }
+
+    @Override
+    public List<Account> findByBalanceBetween(Money min, Money max) {
+        return resolve(balanceIndex.between(min.getMinorUnits(), max.getMinorUnits()));
+    }
+
+    private List<Account> resolve(List<UUID> accountIds) {
+        List<Account> result = new ArrayList<>(accountIds.size());
+        for (UUID accountId : accountIds) {
+            Account account = accounts.get(accountId);
+            if (account != null) {
+                result.add(account);
+            }
+        }
+        return result;
+    }
+
+    private void reindex(Account account) {
+        UUID previousUserId = indexedUserIds.get(account.getId());
+        if (previousUserId != null && !previousUserId.equals(account.getUserId())) {
+            unindex(account.getId());
+        }
+        if (account.getUserId() != null) {
+            accountsByUser.computeIfAbsent(account.getUserId(), k -> new LinkedHashMap<>())
+                    .put(account.getId(), account);
+            indexedUserIds.put(account.getId(), account.getUserId());
+        }
+    }
+
+    private void unindex(UUID accountId) {
+        UUID userId = indexedUserIds.remove(accountId);
+        if (userId == null) {
+            return;
+        }
+        Map<UUID, Account> userAccounts = accountsByUser.get(userId);
+        if (userAccounts != null) {
+            userAccounts.remove(accountId);
+            // Pas de bucket vide : existsByUserId reste un simple containsKey
+            if (userAccounts.isEmpty()) {
+                accountsByUser.remove(userId);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -10,10 +10,22 @@ public interface AuthInterface {
     User findById(String id);
     
     void save(User user);
+
+    // Écriture groupée : les implémentations amortissent index, verrous et flush sur tout le lot
+    default void saveAll(List<User> users) {
+        for (User user : users) {
+            save(user);
+        }
+    }
         
     void delete(String id);    
 
     List<User> findAll();
 
     User findByFullName(String fullName);
+
+    // Recherche par email normalisé (trim, insensible à la casse)
+    User findByEmail(String email);
+
+    boolean existsByEmail(String email);
 }
\ No newline at end of file
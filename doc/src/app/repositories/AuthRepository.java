@@ -1,6 +1,7 @@
 package app.repositories;
 
 import app.models.User;
+import app.utils.ValidationUtils;
 import java.util.*;
 
 
@@ -8,6 +9,11 @@ public class AuthRepository implements AuthInterface {
 
     private Map<String, User> database = new HashMap<>();
 
+    // Index email normalisé -> utilisateur
+    private Map<String, User> usersByEmail = new HashMap<>();
+    // Email sous lequel chaque utilisateur est indexé, pour suivre les changements d'email
+    private Map<String, String> indexedEmails = new HashMap<>();
+
     @Override
     public User findById(String id) {
         return database.get(id);
@@ -15,12 +21,32 @@ public class AuthRepository implements AuthInterface {
 
     @Override
     public void save(User user) {
-        database.put(user.getId().toString(), user);
+        String id = user.getId().toString();
+        String email = ValidationUtils.normalizeEmail(user.getEmail());
+        User owner = email == null ? null : usersByEmail.get(email);
+        if (owner != null && !owner.getId().equals(user.getId())) {
+            throw new IllegalStateException("Cet email est déjà utilisé!");
+        }
+        database.put(id, user);
+
+        String previousEmail = indexedEmails.get(id);
+        if (previousEmail != null && !previousEmail.equals(email)) {
+            usersByEmail.remove(previousEmail);
+            indexedEmails.remove(id);
+        }
+        if (email != null) {
+            usersByEmail.put(email, user);
+            indexedEmails.put(id, email);
+        }
     }
 
     @Override
     public void delete(String id) {
         database.remove(id);
+        String email = indexedEmails.remove(id);
+        if (email != null) {
+            usersByEmail.remove(email);
+        }
     }
 
     @Override
@@ -37,4 +63,16 @@ public class AuthRepository implements AuthInterface {
         }
         return null;
     }
+
+    @Override
+    public User findByEmail(String email) {
+        String normalized = ValidationUtils.normalizeEmail(email);
+        return normalized == null ? null : usersByEmail.get(normalized);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        String normalized = ValidationUtils.normalizeEmail(email);
+        return normalized != null && usersByEmail.containsKey(normalized);
+    }
 }
@@ -0,0 +1,94 @@
+package app.repositories;
+
+import app.models.Transaction;
+import app.models.TransactionType;
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Points de contrôle de solde d'un index chronologique de compte : solde cumulé
+ * au début de chaque bloc de INTERVAL entrées
+ *
+ * Un solde à une date = point du bloc + au plus INTERVAL - 1 entrées : latence bornée
+ * quel que soit l'âge du compte. Les points sont tenus à jour à chaque écriture (les lectures
+ * ne modifient rien et peuvent se faire sous verrou de lecture) ; une insertion ou suppression
+ * au milieu de l'index recalcule les points situés après elle, comme elle décale déjà les entrées
+ * (inserted/removed : simple décalage des points, sans relire les entrées).
+ * Montants signés ; les transactions UNKNOWN sont ignorées, comme dans BalanceRebuilder.
+ */
+final class BalanceCheckpoints {
+
+    static final int INTERVAL = 256;
+
+    // balances[j] = somme des entrées [0, j * INTERVAL[
+    private long[] balances = new long[4];
+    // Nombre de points à jour (balances[0] = 0 l'est toujours)
+    private int valid = 1;
+
+    static long signedAmount(Transaction transaction) {
+        return transaction.getType() == TransactionType.UNKNOWN ? 0 : transaction.getMontant().getMinorUnits();
+    }
+
+    /**
+     * À appeler après chaque écriture de l'index
+     * @param firstChanged Premier indice dont l'entrée a changé (insertion, suppression, fusion)
+     * @param size Nouvelle taille de l'index
+     * @param amountAt Montant signé de l'entrée d'indice i
+     */
+    void update(int firstChanged, int size, IntToLongFunction amountAt) {
+        valid = Math.min(valid, firstChanged / INTERVAL + 1);
+        int blocks = size / INTERVAL;
+        if (blocks < valid) {
+            return;
+        }
+        if (blocks >= balances.length) {
+            balances = Arrays.copyOf(balances, Math.max(blocks + 1, balances.length * 2));
+        }
+        for (int j = valid; j <= blocks; j++) {
+            long balance = balances[j - 1];
+            for (int i = (j - 1) * INTERVAL; i < j * INTERVAL; i++) {
+                balance = Math.addExact(balance, amountAt.applyAsLong(i));
+            }
+            balances[j] = balance;
+        }
+        valid = blocks + 1;
+    }
+
+    /**
+     * Variante de update pour une seule entrée insérée à l'indice position (index déjà mis à jour) :
+     * chaque point suivant est décalé d'une entrée en O(1), sans relire les blocs
+     * @param amount Montant signé de l'entrée insérée
+     */
+    void inserted(int position, int size, long amount, IntToLongFunction amountAt) {
+        // Avant l'insertion, le point j couvrait [0, j * INTERVAL[ ; l'entrée sortie du bloc est maintenant en j * INTERVAL
+        int last = Math.min(valid - 1, (size - 1) / INTERVAL);
+        for (int j = position / INTERVAL + 1; j <= last; j++) {
+            balances[j] = Math.subtractExact(Math.addExact(balances[j], amount), amountAt.applyAsLong(j * INTERVAL));
+        }
+        update(size, size, amountAt);
+    }
+
+    /**
+     * Variante de update pour une seule entrée retirée de l'indice position (index déjà mis à jour)
+     * @param amount Montant signé de l'entrée retirée
+     */
+    void removed(int position, int size, long amount, IntToLongFunction amountAt) {
+        valid = Math.min(valid, size / INTERVAL + 1);
+        // L'entrée entrée dans le bloc j depuis le bloc suivant est maintenant en j * INTERVAL - 1
+        for (int j = position / INTERVAL + 1; j < valid; j++) {
+            balances[j] = Math.addExact(Math.subtractExact(balances[j], amount), amountAt.applyAsLong(j * INTERVAL - 1));
+        }
+    }
+
+    /**
+     * Somme des count premières entrées
+     */
+    long balanceOfFirst(int count, IntToLongFunction amountAt) {
+        int block = count / INTERVAL;
+        long balance = balances[block];
+        for (int i = block * INTERVAL; i < count; i++) {
+            balance = Math.addExact(balance, amountAt.applyAsLong(i));
+        }
+        return balance;
+    }
+}
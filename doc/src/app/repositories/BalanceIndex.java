@@ -0,0 +1,105 @@
+package app.repositories;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import app.models.Account;
+
+/**
+ * Index ordonné des comptes par solde : skip list concurrente triée par (solde, id)
+ * Top N et requêtes par plage de solde en O(log n + k), sans trier tous les comptes
+ *
+ * Modèle de cohérence :
+ * - les mises à jour d'un même compte sont sérialisées et relisent le solde courant du compte :
+ *   après la dernière modification d'un solde, l'index converge vers sa valeur exacte
+ * - une mise à jour insère la nouvelle entrée avant de retirer l'ancienne : une lecture
+ *   concurrente peut voir les deux, les résultats sont donc dédoublonnés par id
+ */
+public class BalanceIndex {
+
+    private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+    private static final UUID MAX_ID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>();
+    // Entrée actuellement indexée pour chaque compte
+    private final ConcurrentHashMap<UUID, Entry> indexed = new ConcurrentHashMap<>();
+
+    // À appeler après toute modification du solde du compte
+    public void update(Account account) {
+        indexed.compute(account.getId(), (id, previous) -> {
+            long balance = account.getSolde().getMinorUnits();
+            if (previous != null && previous.balanceMinor == balance) {
+                return previous;
+            }
+            Entry entry = new Entry(balance, id);
+            entries.add(entry);
+            if (previous != null) {
+                entries.remove(previous);
+            }
+            return entry;
+        });
+    }
+
+    public void remove(UUID accountId) {
+        indexed.computeIfPresent(accountId, (id, previous) -> {
+            entries.remove(previous);
+            return null;
+        });
+    }
+
+    /**
+     * Les n comptes aux soldes les plus élevés, du plus haut au plus bas
+     */
+    public List<UUID> top(int n) {
+        return collect(entries.descendingIterator(), n);
+    }
+
+    /**
+     * Comptes dont le solde (en centimes) est dans [minMinor, maxMinor], par solde croissant
+     */
+    public List<UUID> between(long minMinor, long maxMinor) {
+        if (minMinor > maxMinor) {
+            return new ArrayList<>();
+        }
+        return collect(entries.subSet(new Entry(minMinor, MIN_ID), true, new Entry(maxMinor, MAX_ID), true).iterator(),
+                Integer.MAX_VALUE);
+    }
+
+    public int size() {
+        return indexed.size();
+    }
+
+    private static List<UUID> collect(Iterator<Entry> iterator, int limit) {
+        List<UUID> result = new ArrayList<>();
+        Set<UUID> seen = new HashSet<>();
+        while (result.size() < limit && iterator.hasNext()) {
+            UUID id = iterator.next().accountId;
+            if (seen.add(id)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final long balanceMinor;
+        private final UUID accountId;
+
+        Entry(long balanceMinor, UUID accountId) {
+            this.balanceMinor = balanceMinor;
+            this.accountId = accountId;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byBalance = Long.compare(balanceMinor, other.balanceMinor);
+            return byBalance != 0 ? byBalance : accountId.compareTo(other.accountId);
+        }
+    }
+}
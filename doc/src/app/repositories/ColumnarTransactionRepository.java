@@ -0,0 +1,570 @@
+package app.repositories;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntToLongFunction;
+import java.util.function.ToIntFunction;
+import app.models.Money;
+import app.models.Transaction;
+import app.models.TransactionType;
+
+/**
+ * TransactionInterface en colonnes hors tas : une ligne par transaction, sans objet par ligne
+ *
+ * Colonnes (mémoire directe, par blocs) : id (2 longs), indice du compte (int),
+ * date en microsecondes epoch UTC (long), type (octet), montant signé en centimes (long),
+ * id de corrélation des virements (2 longs, 0 si absent) : 53 octets par ligne,
+ * plus ~4 octets d'index par compte et ~8 octets de table de hachage par id.
+ *
+ * Les lectures se font via un flyweight (Row) repositionné ligne par ligne ; les méthodes
+ * de TransactionInterface matérialisent des Transaction pour rester compatibles.
+ * La date est stockée à la microseconde.
+ */
+public class ColumnarTransactionRepository implements TransactionInterface {
+
+    private static final int CHUNK_ROWS = 1 << 16;
+
+    private final LongColumn idMostBits = new LongColumn();
+    private final LongColumn idLeastBits = new LongColumn();
+    private final IntColumn accountIndexes = new IntColumn();
+    private final LongColumn epochMicros = new LongColumn();
+    private final ByteColumn types = new ByteColumn();
+    private final LongColumn amountMinor = new LongColumn();
+    private final LongColumn correlationMostBits = new LongColumn();
+    private final LongColumn correlationLeastBits = new LongColumn();
+    private int rowCount;
+
+    // Dictionnaire des comptes : UUID <-> indice dense
+    private final Map<UUID, Integer> accountIndexById = new HashMap<>();
+    private final List<UUID> accountIds = new ArrayList<>();
+    private final List<RowList> rowsByAccount = new ArrayList<>();
+    // Cumuls journaliers par compte (même indice dense), pour summarize en O(log jours)
+    private final List<DailyRollup> rollupsByAccount = new ArrayList<>();
+
+    // Table de hachage ouverte id -> ligne + 1 (0 = vide), les clés sont lues dans les colonnes
+    private int[] rowsById = new int[1024];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Override
+    public void save(Transaction transaction) {
+        lock.writeLock().lock();
+        try {
+            write(transaction);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Un seul verrou d'écriture pour tout le lot
+    @Override
+    public void saveAll(List<Transaction> transactions) {
+        lock.writeLock().lock();
+        try {
+            for (Transaction transaction : transactions)
+                write(transaction);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Verrou d'écriture tenu par l'appelant
+    private void write(Transaction transaction) {
+        if (transaction == null || transaction.getId() == null || transaction.getAccountId() == null
+                || transaction.getDateTransaction() == null)
+            return;
+        long micros = toEpochMicros(transaction.getDateTransaction());
+        long minor = transaction.getMontant().getMinorUnits();
+        byte type = transaction.getType().getCode();
+        UUID correlationId = transaction.getCorrelationId();
+        long correlationMost = correlationId == null ? 0 : correlationId.getMostSignificantBits();
+        long correlationLeast = correlationId == null ? 0 : correlationId.getLeastSignificantBits();
+        int account = accountIndex(transaction.getAccountId());
+        int row = findRow(transaction.getId());
+        if (row >= 0) {
+            // Mise à jour en place : la ligne change éventuellement de place dans l'index du compte
+            rowsByAccount.get(accountIndexes.get(row)).remove(row);
+            rollupsByAccount.get(accountIndexes.get(row))
+                    .apply(DailyRollup.epochDayOfMicros(epochMicros.get(row)), amountMinor.get(row), -1);
+            accountIndexes.set(row, account);
+            epochMicros.set(row, micros);
+            types.set(row, type);
+            amountMinor.set(row, minor);
+            correlationMostBits.set(row, correlationMost);
+            correlationLeastBits.set(row, correlationLeast);
+        } else {
+            row = rowCount++;
+            idMostBits.append(transaction.getId().getMostSignificantBits());
+            idLeastBits.append(transaction.getId().getLeastSignificantBits());
+            accountIndexes.append(account);
+            epochMicros.append(micros);
+            types.append(type);
+            amountMinor.append(minor);
+            correlationMostBits.append(correlationMost);
+            correlationLeastBits.append(correlationLeast);
+            insertRowId(row);
+        }
+        rowsByAccount.get(account).insert(row);
+        rollupsByAccount.get(account).apply(DailyRollup.epochDayOfMicros(micros), minor, 1);
+    }
+
+    @Override
+    public Transaction findById(UUID id) {
+        lock.readLock().lock();
+        try {
+            int row = findRow(id);
+            return row < 0 ? null : materialize(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> findByAccountId(UUID accountId) {
+        return collect(accountId, rows -> 0, rows -> rows.size);
+    }
+
+    @Override
+    public List<Transaction> findLastByAccountId(UUID accountId, int limit) {
+        return collect(accountId, rows -> Math.max(0, rows.size - Math.max(0, limit)), rows -> rows.size);
+    }
+
+    @Override
+    public List<Transaction> findByAccountIdBetween(UUID accountId, LocalDateTime from, LocalDateTime to) {
+        long fromMicros = toEpochMicros(from);
+        long toMicros = toEpochMicros(to);
+        return collect(accountId, rows -> rows.firstAtOrAfter(fromMicros), rows -> rows.firstAtOrAfter(toMicros));
+    }
+
+    @Override
+    public List<Transaction> findByAccountIdBefore(UUID accountId, LocalDateTime cursor, int limit) {
+        long cursorMicros = toEpochMicros(cursor);
+        return collect(accountId, rows -> Math.max(0, rows.firstAtOrAfter(cursorMicros) - Math.max(0, limit)),
+                rows -> rows.firstAtOrAfter(cursorMicros));
+    }
+
+    @Override
+    public TransactionPage findPageByAccountId(UUID accountId, TransactionCursor after, int pageSize) {
+        lock.readLock().lock();
+        try {
+            Integer account = accountIndexById.get(accountId);
+            if (account == null)
+                return new TransactionPage(new ArrayList<>(), false);
+            RowList rows = rowsByAccount.get(account);
+            int start = after == null ? 0 : rows.firstAfter(toEpochMicros(after.getDate()), after.getId());
+            int end = Math.min(rows.size, start + Math.max(1, pageSize));
+            List<Transaction> transactions = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                transactions.add(materialize(rows.rows[i]));
+            }
+            return new TransactionPage(transactions, end < rows.size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean ifExistsById(UUID id) {
+        lock.readLock().lock();
+        try {
+            return findRow(id) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super Transaction> action) {
+        forEachRow(row -> action.accept(row.toTransaction()));
+    }
+
+    /**
+     * Parcourt toutes les lignes avec un seul flyweight (aucune allocation par ligne)
+     * Le Row reçu n'est valide que pendant l'appel
+     */
+    public void forEachRow(Consumer<Row> visitor) {
+        lock.readLock().lock();
+        try {
+            Row row = new Row();
+            for (int i = 0; i < rowCount; i++) {
+                visitor.accept(row.moveTo(i));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Parcourt les lignes [fromRow, toRow[ (ordre d'insertion) : permet de partitionner
+     * un parcours complet entre plusieurs threads
+     */
+    public void forEachRow(int fromRow, int toRow, Consumer<Row> visitor) {
+        lock.readLock().lock();
+        try {
+            Row row = new Row();
+            for (int i = Math.max(0, fromRow), end = Math.min(toRow, rowCount); i < end; i++) {
+                visitor.accept(row.moveTo(i));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Parcourt les lignes d'un compte par ordre chronologique avec un seul flyweight
+     */
+    public void forEachRow(UUID accountId, Consumer<Row> visitor) {
+        lock.readLock().lock();
+        try {
+            Integer account = accountIndexById.get(accountId);
+            if (account == null)
+                return;
+            RowList rows = rowsByAccount.get(account);
+            Row row = new Row();
+            for (int i = 0; i < rows.size; i++) {
+                visitor.accept(row.moveTo(rows.rows[i]));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public TransactionSummary summarize(UUID accountId, LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            Integer account = accountIndexById.get(accountId);
+            return account == null ? TransactionSummary.EMPTY : rollupsByAccount.get(account).summarize(from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Money balanceAsOf(UUID accountId, LocalDateTime at) {
+        lock.readLock().lock();
+        try {
+            Integer account = accountIndexById.get(accountId);
+            if (account == null)
+                return Money.ZERO;
+            RowList rows = rowsByAccount.get(account);
+            return Money.ofMinor(rows.checkpoints.balanceOfFirst(rows.firstAtOrAfter(toEpochMicros(at) + 1), rows.amountAt));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Compte correspondant à un indice dense (Row.getAccountIndex)
+    public UUID getAccountId(int accountIndex) {
+        lock.readLock().lock();
+        try {
+            return accountIds.get(accountIndex);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Vue légère sur une ligne du stockage
+     */
+    public final class Row {
+        private int row;
+
+        private Row() {
+        }
+
+        private Row moveTo(int row) {
+            this.row = row;
+            return this;
+        }
+
+        public UUID getId() {
+            return new UUID(idMostBits.get(row), idLeastBits.get(row));
+        }
+
+        public UUID getAccountId() {
+            return accountIds.get(accountIndexes.get(row));
+        }
+
+        // Indice dense du compte, stable pour toute la vie du stockage
+        public int getAccountIndex() {
+            return accountIndexes.get(row);
+        }
+
+        public long getEpochMicros() {
+            return epochMicros.get(row);
+        }
+
+        public TransactionType getType() {
+            return TransactionType.fromCode(types.get(row));
+        }
+
+        // Montant signé en centimes
+        public long getAmountMinor() {
+            return amountMinor.get(row);
+        }
+
+        public UUID getCorrelationId() {
+            return correlationOf(row);
+        }
+
+        public Transaction toTransaction() {
+            return materialize(row);
+        }
+    }
+
+    private List<Transaction> collect(UUID accountId, ToIntFunction<RowList> start, ToIntFunction<RowList> end) {
+        lock.readLock().lock();
+        try {
+            Integer account = accountIndexById.get(accountId);
+            if (account == null)
+                return new ArrayList<>();
+            RowList rows = rowsByAccount.get(account);
+            int from = start.applyAsInt(rows);
+            int to = end.applyAsInt(rows);
+            List<Transaction> result = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                result.add(materialize(rows.rows[i]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Transaction materialize(int row) {
+        long micros = epochMicros.get(row);
+        LocalDateTime date = LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+        return new Transaction(new UUID(idMostBits.get(row), idLeastBits.get(row)),
+                accountIds.get(accountIndexes.get(row)), date, TransactionType.fromCode(types.get(row)),
+                Money.ofMinor(amountMinor.get(row)), correlationOf(row));
+    }
+
+    private UUID correlationOf(int row) {
+        long most = correlationMostBits.get(row);
+        long least = correlationLeastBits.get(row);
+        return most == 0 && least == 0 ? null : new UUID(most, least);
+    }
+
+    private int accountIndex(UUID accountId) {
+        Integer index = accountIndexById.get(accountId);
+        if (index == null) {
+            index = accountIds.size();
+            accountIndexById.put(accountId, index);
+            accountIds.add(accountId);
+            rowsByAccount.add(new RowList());
+            rollupsByAccount.add(new DailyRollup());
+        }
+        return index;
+    }
+
+    private int findRow(UUID id) {
+        long most = id.getMostSignificantBits();
+        long least = id.getLeastSignificantBits();
+        int mask = rowsById.length - 1;
+        for (int slot = hash(most, least) & mask; ; slot = (slot + 1) & mask) {
+            int entry = rowsById[slot];
+            if (entry == 0)
+                return -1;
+            int row = entry - 1;
+            if (idMostBits.get(row) == most && idLeastBits.get(row) == least)
+                return row;
+        }
+    }
+
+    private void insertRowId(int row) {
+        // Facteur de charge max 1/2
+        if (rowCount * 2 > rowsById.length) {
+            int[] previous = rowsById;
+            rowsById = new int[previous.length * 2];
+            for (int entry : previous) {
+                if (entry != 0)
+                    placeRowId(entry - 1);
+            }
+        }
+        placeRowId(row);
+    }
+
+    private void placeRowId(int row) {
+        int mask = rowsById.length - 1;
+        int slot = hash(idMostBits.get(row), idLeastBits.get(row)) & mask;
+        while (rowsById[slot] != 0)
+            slot = (slot + 1) & mask;
+        rowsById[slot] = row + 1;
+    }
+
+    private static int hash(long most, long least) {
+        long h = most * 0x9E3779B97F4A7C15L ^ least;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static long toEpochMicros(LocalDateTime date) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), date);
+    }
+
+    // Lignes d'un compte triées par (date, id), avec leurs points de contrôle de solde
+    private final class RowList {
+        int[] rows = new int[4];
+        int size;
+        final BalanceCheckpoints checkpoints = new BalanceCheckpoints();
+        // Montant signé de la i-ème ligne (UNKNOWN ignoré)
+        final IntToLongFunction amountAt = i -> signedAmount(rows[i]);
+
+        void insert(int row) {
+            if (size == rows.length)
+                rows = Arrays.copyOf(rows, size * 2);
+            // Cas courant (ligne la plus récente) : append sans recherche
+            int position = size == 0 || compare(rows[size - 1], row) <= 0 ? size : lowerBound(row);
+            System.arraycopy(rows, position, rows, position + 1, size - position);
+            rows[position] = row;
+            size++;
+            checkpoints.inserted(position, size, signedAmount(row), amountAt);
+        }
+
+        // À appeler avant de modifier la date ou l'id de la ligne : elle est cherchée à sa place actuelle
+        void remove(int row) {
+            int i = lowerBound(row);
+            if (i < size && rows[i] == row) {
+                System.arraycopy(rows, i + 1, rows, i, size - i - 1);
+                size--;
+                checkpoints.removed(i, size, signedAmount(row), amountAt);
+            }
+        }
+
+        // Premier indice dont la ligne n'est pas avant row dans l'ordre (date, id) : O(log n)
+        private int lowerBound(int row) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compare(rows[middle], row) < 0)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low;
+        }
+
+        // Premier indice dont la date est >= micros
+        int firstAtOrAfter(long micros) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (epochMicros.get(rows[middle]) < micros)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low;
+        }
+
+        // Premier indice strictement après (micros, id)
+        int firstAfter(long micros, UUID id) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int row = rows[middle];
+                int byDate = Long.compare(epochMicros.get(row), micros);
+                if (byDate == 0) {
+                    byDate = Long.compare(idMostBits.get(row), id.getMostSignificantBits());
+                    if (byDate == 0)
+                        byDate = Long.compare(idLeastBits.get(row), id.getLeastSignificantBits());
+                }
+                if (byDate <= 0)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low;
+        }
+
+        private long signedAmount(int row) {
+            return types.get(row) == TransactionType.UNKNOWN.getCode() ? 0 : amountMinor.get(row);
+        }
+
+        private int compare(int left, int right) {
+            int byDate = Long.compare(epochMicros.get(left), epochMicros.get(right));
+            if (byDate != 0)
+                return byDate;
+            int byMost = Long.compare(idMostBits.get(left), idMostBits.get(right));
+            return byMost != 0 ? byMost : Long.compare(idLeastBits.get(left), idLeastBits.get(right));
+        }
+    }
+
+    // Colonne de longs en mémoire directe, allouée par blocs de CHUNK_ROWS
+    private static final class LongColumn {
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private int size;
+
+        long get(int row) {
+            return chunks.get(row / CHUNK_ROWS).getLong((row % CHUNK_ROWS) * Long.BYTES);
+        }
+
+        void set(int row, long value) {
+            chunks.get(row / CHUNK_ROWS).putLong((row % CHUNK_ROWS) * Long.BYTES, value);
+        }
+
+        void append(long value) {
+            if (size % CHUNK_ROWS == 0)
+                chunks.add(ByteBuffer.allocateDirect(CHUNK_ROWS * Long.BYTES).order(ByteOrder.nativeOrder()));
+            set(size++, value);
+        }
+    }
+
+    private static final class ByteColumn {
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private int size;
+
+        byte get(int row) {
+            return chunks.get(row / CHUNK_ROWS).get(row % CHUNK_ROWS);
+        }
+
+        void set(int row, byte value) {
+            chunks.get(row / CHUNK_ROWS).put(row % CHUNK_ROWS, value);
+        }
+
+        void append(byte value) {
+            if (size % CHUNK_ROWS == 0)
+                chunks.add(ByteBuffer.allocateDirect(CHUNK_ROWS));
+            set(size++, value);
+        }
+    }
+
+    private static final class IntColumn {
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+        private int size;
+
+        int get(int row) {
+            return chunks.get(row / CHUNK_ROWS).getInt((row % CHUNK_ROWS) * Integer.BYTES);
+        }
+
+        void set(int row, int value) {
+            chunks.get(row / CHUNK_ROWS).putInt((row % CHUNK_ROWS) * Integer.BYTES, value);
+        }
+
+        void append(int value) {
+            if (size % CHUNK_ROWS == 0)
+                chunks.add(ByteBuffer.allocateDirect(CHUNK_ROWS * Integer.BYTES).order(ByteOrder.nativeOrder()));
+            set(size++, value);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package app.repositories;
+
+import app.models.Account;
+import app.models.Money;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Version thread-safe de AccountRepository
+ *
+ * Modèle de cohérence :
+ * - les écritures (save/delete/onBalanceChanged) d'un même compte sont sérialisées par un verrou
+ *   strié et mettent à jour la table primaire et les index de façon atomique vis-à-vis des autres
+ *   écrivains ; aucune attente n'a lieu dans un compute de ConcurrentHashMap (moniteur qui
+ *   épinglerait le thread porteur d'un thread virtuel)
+ * - les comptes d'un utilisateur sont une table immuable remplacée à chaque modification
+ * - les lectures ne bloquent jamais ; chaque lecture voit toutes les écritures terminées
+ *   avant son début, et éventuellement une partie des écritures en cours
+ * - findByUserId renvoie une copie faiblement cohérente (aucune ConcurrentModificationException)
+ */
+public class ConcurrentAccountRepository implements AccountInterface {
+    private static final int STRIPES = 256;
+
+    private final ConcurrentHashMap<UUID, Account> accounts = new ConcurrentHashMap<>();
+    // Verrous des écrivains, partagés par les comptes d'une même bande
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    // Index secondaire userId -> comptes (copie sur écriture)
+    private final ConcurrentHashMap<UUID, Map<UUID, Account>> accountsByUser = new ConcurrentHashMap<>();
+    // userId sous lequel chaque compte est indexé
+    private final ConcurrentHashMap<UUID, UUID> indexedUserIds = new ConcurrentHashMap<>();
+    // Index ordonné par solde (top N, plages de solde)
+    private final BalanceIndex balanceIndex = new BalanceIndex();
+
+    public ConcurrentAccountRepository() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void save(Account account) {
+        if (account == null || account.getId() == null) {
+            return;
+        }
+        ReentrantLock lock = lockOf(account.getId());
+        lock.lock();
+        try {
+            accounts.put(account.getId(), account);
+            reindex(account);
+            balanceIndex.update(account);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Sérialisé avec save/delete du compte : un compte supprimé n'est jamais réindexé
+    @Override
+    public void onBalanceChanged(Account account) {
+        if (account == null || account.getId() == null) {
+            return;
+        }
+        ReentrantLock lock = lockOf(account.getId());
+        lock.lock();
+        try {
+            Account current = accounts.get(account.getId());
+            if (current != null) {
+                balanceIndex.update(current);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Account findById(UUID id) {
+        return accounts.get(id);
+    }
+
+    @Override
+    public List<Account> findAll() {
+        return new ArrayList<>(accounts.values());
+    }
+
+    @Override
+    public List<Account> findByUserId(UUID userId) {
+        Map<UUID, Account> userAccounts = accountsByUser.get(userId);
+        if (userAccounts == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(userAccounts.values());
+    }
+
+    @Override
+    public int countByUserId(UUID userId) {
+        Map<UUID, Account> userAccounts = accountsByUser.get(userId);
+        return userAccounts == null ? 0 : userAccounts.size();
+    }
+
+    @Override
+    public boolean existsByUserId(UUID userId) {
+        Map<UUID, Account> userAccounts = accountsByUser.get(userId);
+        return userAccounts != null && !userAccounts.isEmpty();
+    }
+
+    @Override
+    public void delete(Account account) {
+        if (account == null || account.getId() == null) {
+            return;
+        }
+        ReentrantLock lock = lockOf(account.getId());
+        lock.lock();
+        try {
+            if (accounts.remove(account.getId()) != null) {
+                unindex(account.getId());
+                balanceIndex.remove(account.getId());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(UUID id) {
+        return accounts.containsKey(id);
+    }
+
+    @Override
+    public List<Account> findTopByBalance(int n) {
+        return resolve(balanceIndex.top(n));
+    }
+
+    @Override
+    public List<Account> findByBalanceBetween(Money min, Money max) {
+        return resolve(balanceIndex.between(min.getMinorUnits(), max.getMinorUnits()));
+    }
+
+    private List<Account> resolve(List<UUID> accountIds) {
+        List<Account> result = new ArrayList<>(accountIds.size());
+        for (UUID accountId : accountIds) {
+            Account account = accounts.get(accountId);
+            if (account != null) {
+                result.add(account);
+            }
+        }
+        return result;
+    }
+
+    private ReentrantLock lockOf(UUID accountId) {
+        int h = accountId.hashCode();
+        return locks[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    // Appelé sous le verrou du compte ; les fonctions de compute ne font que copier une petite table
+    private void reindex(Account account) {
+        UUID previousUserId = indexedUserIds.get(account.getId());
+        if (previousUserId != null && !previousUserId.equals(account.getUserId())) {
+            unindex(account.getId());
+        }
+        if (account.getUserId() != null) {
+            accountsByUser.compute(account.getUserId(), (userId, bucket) -> {
+                if (bucket != null && bucket.get(account.getId()) == account) {
+                    return bucket;
+                }
+                Map<UUID, Account> userAccounts = bucket != null ? new LinkedHashMap<>(bucket) : new LinkedHashMap<>();
+                userAccounts.put(account.getId(), account);
+                return Collections.unmodifiableMap(userAccounts);
+            });
+            indexedUserIds.put(account.getId(), account.getUserId());
+        }
+    }
+
+    private void unindex(UUID accountId) {
+        UUID userId = indexedUserIds.remove(accountId);
+        if (userId == null) {
+            return;
+        }
+        // Le bucket vide est retiré atomiquement avec la suppression
+        accountsByUser.computeIfPresent(userId, (key, bucket) -> {
+            if (!bucket.containsKey(accountId)) {
+                return bucket;
+            }
+            Map<UUID, Account> userAccounts = new LinkedHashMap<>(bucket);
+            userAccounts.remove(accountId);
+            return userAccounts.isEmpty() ? null : Collections.unmodifiableMap(userAccounts);
+        });
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package app.repositories;
+
+import app.models.User;
+import app.utils.ValidationUtils;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Version thread-safe de AuthRepository
+ *
+ * Modèle de cohérence :
+ * - l'unicité de l'email est garantie même entre écrivains concurrents
+ *   (réservation atomique de l'email dans l'index via putIfAbsent)
+ * - les écritures d'un même utilisateur sont sérialisées
+ * - les lectures ne bloquent jamais et voient toutes les écritures terminées
+ */
+public class ConcurrentAuthRepository implements AuthInterface {
+
+    private final ConcurrentHashMap<String, User> database = new ConcurrentHashMap<>();
+
+    // Index email normalisé -> utilisateur
+    private final ConcurrentHashMap<String, User> usersByEmail = new ConcurrentHashMap<>();
+    // Email sous lequel chaque utilisateur est indexé
+    private final ConcurrentHashMap<String, String> indexedEmails = new ConcurrentHashMap<>();
+
+    @Override
+    public User findById(String id) {
+        return database.get(id);
+    }
+
+    @Override
+    public void save(User user) {
+        String email = ValidationUtils.normalizeEmail(user.getEmail());
+        database.compute(user.getId().toString(), (id, previous) -> {
+            if (email != null) {
+                User owner = usersByEmail.putIfAbsent(email, user);
+                if (owner != null && !owner.getId().equals(user.getId())) {
+                    // L'exception annule le compute : table et index email ne sont pas modifiés
+                    // (les champs déjà changés sur l'instance restent à rétablir par l'appelant)
+                    throw new IllegalStateException("Cet email est déjà utilisé!");
+                }
+                if (owner != null) {
+                    usersByEmail.put(email, user);
+                }
+            }
+            String previousEmail = email != null ? indexedEmails.put(id, email) : indexedEmails.remove(id);
+            if (previousEmail != null && !previousEmail.equals(email)) {
+                usersByEmail.remove(previousEmail);
+            }
+            return user;
+        });
+    }
+
+    @Override
+    public void delete(String id) {
+        database.computeIfPresent(id, (key, previous) -> {
+            String email = indexedEmails.remove(key);
+            if (email != null) {
+                usersByEmail.remove(email);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<User> findAll() {
+        return new ArrayList<>(database.values());
+    }
+
+    @Override
+    public User findByFullName(String fullName) {
+        for (User user : database.values()) {
+            if (user.getFullName().equals(fullName)) {
+                return user;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        String normalized = ValidationUtils.normalizeEmail(email);
+        return normalized == null ? null : usersByEmail.get(normalized);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        String normalized = ValidationUtils.normalizeEmail(email);
+        return normalized != null && usersByEmail.containsKey(normalized);
+    }
+}
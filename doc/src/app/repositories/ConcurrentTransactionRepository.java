@@ -0,0 +1,226 @@
+package app.repositories;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import app.models.Money;
+import app.models.Transaction;
+
+/**
+ * Version thread-safe de TransactionRepository
+ *
+ * Modèle de cohérence :
+ * - chaque compte a son propre index trié protégé par un verrou lecture/écriture :
+ *   les écritures sur des comptes différents ne se bloquent pas entre elles
+ * - une écriture publie la transaction dans la table primaire, puis réconcilie sous leur verrou
+ *   l'index du compte de la nouvelle version et celui de la version remplacée : chaque index
+ *   relit la version publiée de l'id, de sorte que des save concurrents sur un même id laissent
+ *   l'index dans l'état de la dernière publication, quel que soit l'ordre des réconciliations
+ * - aucun verrou n'est pris dans un compute de ConcurrentHashMap (moniteur qui épinglerait
+ *   le thread porteur d'un thread virtuel)
+ * - une requête par compte voit un état de l'index cohérent (toutes les transactions
+ *   indexées avant elle, aucune à moitié insérée) ; findById peut voir une version
+ *   publiée mais pas encore indexée
+ * - saveAll prend le verrou de chaque compte touché une seule fois
+ */
+public class ConcurrentTransactionRepository implements TransactionInterface {
+
+    private final ConcurrentHashMap<UUID, Transaction> transactions = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<UUID, AccountIndex> transactionsByAccount = new ConcurrentHashMap<>();
+
+    // Compte sous lequel chaque transaction est indexée (l'instance a pu changer de compte depuis)
+    private final ConcurrentHashMap<UUID, UUID> indexedAccounts = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(Transaction transaction) {
+        if (transaction == null || transaction.getId() == null)
+            return;
+        Transaction previous = transactions.put(transaction.getId(), transaction);
+        for (UUID accountId : affectedAccounts(previous, transaction))
+            sync(accountId, List.of(transaction.getId()));
+    }
+
+    @Override
+    public void saveAll(List<Transaction> batch) {
+        // Un id présent deux fois dans le lot : seule la dernière version est indexée, comme avec save
+        Map<UUID, List<UUID>> idsByAccount = new HashMap<>();
+        for (Transaction transaction : TransactionIndex.lastById(batch)) {
+            Transaction previous = transactions.put(transaction.getId(), transaction);
+            for (UUID accountId : affectedAccounts(previous, transaction))
+                idsByAccount.computeIfAbsent(accountId, k -> new ArrayList<>()).add(transaction.getId());
+        }
+        idsByAccount.forEach(this::sync);
+    }
+
+    @Override
+    public Transaction findById(UUID id) {
+        return transactions.get(id);
+    }
+
+    @Override
+    public List<Transaction> findByAccountId(UUID accountId) {
+        AccountIndex index = transactionsByAccount.get(accountId);
+        if (index == null)
+            return new ArrayList<>();
+        index.lock.readLock().lock();
+        try {
+            return index.entries.all();
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> findLastByAccountId(UUID accountId, int limit) {
+        AccountIndex index = transactionsByAccount.get(accountId);
+        if (index == null)
+            return new ArrayList<>();
+        index.lock.readLock().lock();
+        try {
+            return index.entries.last(limit);
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> findByAccountIdBetween(UUID accountId, LocalDateTime from, LocalDateTime to) {
+        AccountIndex index = transactionsByAccount.get(accountId);
+        if (index == null)
+            return new ArrayList<>();
+        index.lock.readLock().lock();
+        try {
+            return index.entries.between(from, to);
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> findByAccountIdBefore(UUID accountId, LocalDateTime cursor, int limit) {
+        AccountIndex index = transactionsByAccount.get(accountId);
+        if (index == null)
+            return new ArrayList<>();
+        index.lock.readLock().lock();
+        try {
+            return index.entries.before(cursor, limit);
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public TransactionPage findPageByAccountId(UUID accountId, TransactionCursor after, int pageSize) {
+        AccountIndex index = transactionsByAccount.get(accountId);
+        if (index == null)
+            return new TransactionPage(new ArrayList<>(), false);
+        index.lock.readLock().lock();
+        try {
+            return index.entries.after(after, pageSize);
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public TransactionSummary summarize(UUID accountId, LocalDate from, LocalDate to) {
+        AccountIndex index = transactionsByAccount.get(accountId);
+        if (index == null)
+            return TransactionSummary.EMPTY;
+        index.lock.readLock().lock();
+        try {
+            return index.rollup.summarize(from, to);
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Money balanceAsOf(UUID accountId, LocalDateTime at) {
+        AccountIndex index = transactionsByAccount.get(accountId);
+        if (index == null)
+            return Money.ZERO;
+        index.lock.readLock().lock();
+        try {
+            return Money.ofMinor(index.entries.balanceAsOf(at));
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean ifExistsById(UUID id) {
+        return transactions.containsKey(id);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Transaction> action) {
+        transactions.values().forEach(action);
+    }
+
+    /**
+     * Comptes dont l'index doit être réconcilié après la publication : celui de la nouvelle version,
+     * celui de la version remplacée et celui où l'id est indexé (différent si l'instance a été modifiée)
+     */
+    private Set<UUID> affectedAccounts(Transaction previous, Transaction transaction) {
+        Set<UUID> accounts = new HashSet<>(4);
+        UUID indexedAccountId = indexedAccounts.get(transaction.getId());
+        if (indexedAccountId != null)
+            accounts.add(indexedAccountId);
+        if (previous != null && previous.getAccountId() != null)
+            accounts.add(previous.getAccountId());
+        if (transaction.getAccountId() != null)
+            accounts.add(transaction.getAccountId());
+        return accounts;
+    }
+
+    /**
+     * Aligne l'index du compte sur la version publiée de chaque id : l'entrée indexée est retirée,
+     * la version publiée est ajoutée si elle appartient (encore) à ce compte
+     */
+    private void sync(UUID accountId, List<UUID> ids) {
+        // Les index par compte ne sont jamais retirés : pas de course entre suppression et ajout
+        AccountIndex index = transactionsByAccount.computeIfAbsent(accountId, k -> new AccountIndex());
+        index.lock.writeLock().lock();
+        try {
+            List<Transaction> added = new ArrayList<>(ids.size());
+            for (UUID id : ids) {
+                Transaction indexed = index.indexed.remove(id);
+                if (indexed != null) {
+                    indexedAccounts.remove(id, accountId);
+                    if (index.entries.remove(indexed))
+                        index.rollup.remove(indexed);
+                }
+                Transaction current = transactions.get(id);
+                if (current != null && accountId.equals(current.getAccountId()) && current.getDateTransaction() != null) {
+                    index.indexed.put(id, current);
+                    indexedAccounts.put(id, accountId);
+                    added.add(current);
+                }
+            }
+            if (added.size() == 1) {
+                index.entries.add(added.get(0));
+            } else {
+                added.sort(TransactionIndex.CHRONOLOGICAL);
+                index.entries.addAll(added);
+            }
+            for (Transaction transaction : added)
+                index.rollup.add(transaction);
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+    }
+
+    private static class AccountIndex {
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        final TransactionIndex entries = new TransactionIndex();
+        // Version indexée de chaque id (l'instance publiée a pu être remplacée depuis)
+        final Map<UUID, Transaction> indexed = new HashMap<>();
+        final DailyRollup rollup = new DailyRollup();
+    }
+}
@@ -0,0 +1,160 @@
+package app.repositories;
+
+import app.models.Transaction;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cumuls journaliers d'un compte (nombre, crédits, débits) dans des arbres de Fenwick indexés
+ * par jour : mise à jour et somme sur une période en O(log jours)
+ *
+ * La fenêtre de jours couverts grandit par doublement (dans les deux sens pour les
+ * transactions antidatées) ; chaque agrandissement reconstruit les arbres en O(jours).
+ * Non thread-safe : protégé par le verrou de l'index du compte.
+ * Le jour et le montant de chaque transaction sont conservés à son ajout : remove retire ces
+ * valeurs-là, même si l'instance a été modifiée depuis (comme les colonnes du repository colonnaire).
+ */
+class DailyRollup {
+
+    private static final int INITIAL_DAYS = 64;
+    private static final long MICROS_PER_DAY = 86_400_000_000L;
+
+    // Jour (epoch) de la première case
+    private long baseDay;
+    // Arbres de Fenwick, indices 1..n
+    private long[] counts;
+    private long[] credits;
+    private long[] debits;
+    // Valeurs ajoutées pour chaque id de transaction
+    private final Map<UUID, Entry> indexed = new HashMap<>();
+
+    static long epochDay(Transaction transaction) {
+        return transaction.getDateTransaction().toLocalDate().toEpochDay();
+    }
+
+    static long epochDayOfMicros(long epochMicros) {
+        return Math.floorDiv(epochMicros, MICROS_PER_DAY);
+    }
+
+    // Un id déjà présent est remplacé
+    void add(Transaction transaction) {
+        if (transaction.getDateTransaction() == null) {
+            return;
+        }
+        Entry entry = new Entry(epochDay(transaction), transaction.getMontant().getMinorUnits());
+        Entry previous = indexed.put(transaction.getId(), entry);
+        if (previous != null) {
+            apply(previous.epochDay, previous.amountMinor, -1);
+        }
+        apply(entry.epochDay, entry.amountMinor, 1);
+    }
+
+    void remove(Transaction transaction) {
+        Entry entry = indexed.remove(transaction.getId());
+        if (entry != null) {
+            apply(entry.epochDay, entry.amountMinor, -1);
+        }
+    }
+
+    void apply(long epochDay, long amountMinor, int sign) {
+        ensureCovers(epochDay);
+        long credit = amountMinor > 0 ? sign * amountMinor : 0;
+        long debit = amountMinor < 0 ? sign * amountMinor : 0;
+        for (int i = (int) (epochDay - baseDay) + 1; i < counts.length; i += i & -i) {
+            counts[i] += sign;
+            credits[i] += credit;
+            debits[i] += debit;
+        }
+    }
+
+    /**
+     * Résumé des jours [from, to[
+     */
+    TransactionSummary summarize(LocalDate from, LocalDate to) {
+        if (counts == null) {
+            return TransactionSummary.EMPTY;
+        }
+        int start = slot(from.toEpochDay());
+        int end = slot(to.toEpochDay());
+        if (start >= end) {
+            return TransactionSummary.EMPTY;
+        }
+        return new TransactionSummary(prefix(counts, end) - prefix(counts, start),
+                prefix(credits, end) - prefix(credits, start),
+                prefix(debits, end) - prefix(debits, start));
+    }
+
+    // Nombre de cases strictement avant le jour, borné à la fenêtre couverte
+    private int slot(long epochDay) {
+        return (int) Math.max(0, Math.min(counts.length - 1, epochDay - baseDay));
+    }
+
+    // Somme des k premières cases
+    private static long prefix(long[] tree, int k) {
+        long sum = 0;
+        for (int i = k; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void ensureCovers(long epochDay) {
+        if (counts == null) {
+            // Un peu de marge avant le premier jour pour les petites antidatations
+            baseDay = epochDay - INITIAL_DAYS / 4;
+            counts = new long[INITIAL_DAYS + 1];
+            credits = new long[INITIAL_DAYS + 1];
+            debits = new long[INITIAL_DAYS + 1];
+            return;
+        }
+        int days = counts.length - 1;
+        long endDay = baseDay + days;
+        if (epochDay >= baseDay && epochDay < endDay) {
+            return;
+        }
+        long span = Math.max(endDay, epochDay + 1) - Math.min(baseDay, epochDay);
+        if (span > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Période de transactions trop étendue: " + LocalDate.ofEpochDay(epochDay));
+        }
+        int newDays = (int) Math.max(span, 2L * days);
+        // Marge du côté où la fenêtre a dû s'étendre
+        long newBase = epochDay < baseDay ? Math.max(endDay, epochDay + 1) - newDays : baseDay;
+        int shift = (int) (baseDay - newBase);
+        counts = rebuild(counts, shift, newDays);
+        credits = rebuild(credits, shift, newDays);
+        debits = rebuild(debits, shift, newDays);
+        baseDay = newBase;
+    }
+
+    // Arbre -> valeurs brutes, décalage dans un tableau plus grand, puis reconstruction linéaire
+    private static long[] rebuild(long[] tree, int shift, int newDays) {
+        int n = tree.length - 1;
+        for (int i = n; i > 0; i--) {
+            int parent = i + (i & -i);
+            if (parent <= n) {
+                tree[parent] -= tree[i];
+            }
+        }
+        long[] rebuilt = new long[newDays + 1];
+        System.arraycopy(tree, 1, rebuilt, 1 + shift, n);
+        for (int i = 1; i <= newDays; i++) {
+            int parent = i + (i & -i);
+            if (parent <= newDays) {
+                rebuilt[parent] += rebuilt[i];
+            }
+        }
+        return rebuilt;
+    }
+
+    private static final class Entry {
+        final long epochDay;
+        final long amountMinor;
+
+        Entry(long epochDay, long amountMinor) {
+            this.epochDay = epochDay;
+            this.amountMinor = amountMinor;
+        }
+    }
+}
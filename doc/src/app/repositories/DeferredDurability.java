@@ -0,0 +1,99 @@
+package app.repositories;
+
+import app.persistence.Journal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Report de l'attente du fsync des écritures journalisées du thread courant
+ *
+ * Entre open() et close(), un save/saveAll/delete des repositories journalisés rend la main dès
+ * que l'enregistrement est écrit et appliqué en mémoire ; await() attend ensuite que tous ces
+ * enregistrements soient sur disque. L'appelant peut ainsi relâcher ses verrous avant l'attente
+ * du group commit : les écrivains suivants rejoignent le même fsync au lieu d'attendre chacun le leur.
+ * Sans repository journalisé, await() ne fait rien.
+ *
+ * Usage :
+ *   try (DeferredDurability durability = DeferredDurability.open()) {
+ *       ... écritures sous verrou ...
+ *       durability.await(); // hors verrou
+ *   }
+ */
+public final class DeferredDurability implements AutoCloseable {
+
+    private static final ThreadLocal<DeferredDurability> CURRENT = new ThreadLocal<>();
+    private static final Runnable NO_CHECK = () -> { };
+
+    private final DeferredDurability outer;
+    // Cas courant : un seul journal
+    private Journal journal;
+    private long sequence;
+    private Map<Journal, Long> others;
+
+    private DeferredDurability(DeferredDurability outer) {
+        this.outer = outer;
+    }
+
+    public static DeferredDurability open() {
+        DeferredDurability scope = new DeferredDurability(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Attend la durabilité de toutes les écritures journalisées depuis open()
+     */
+    public void await() {
+        if (journal != null) {
+            journal.awaitDurable(sequence);
+        }
+        if (others != null) {
+            others.forEach(Journal::awaitDurable);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (outer != null) {
+            CURRENT.set(outer);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    static void append(Journal journal, byte type, byte[] payload, Runnable apply) {
+        appendBatch(journal, type, List.of(payload), NO_CHECK, apply);
+    }
+
+    static void append(Journal journal, byte type, byte[] payload, Runnable check, Runnable apply) {
+        appendBatch(journal, type, List.of(payload), check, apply);
+    }
+
+    static void appendBatch(Journal journal, byte type, List<byte[]> payloads, Runnable apply) {
+        appendBatch(journal, type, payloads, NO_CHECK, apply);
+    }
+
+    // Append journalisé : attente du fsync tout de suite, ou reportée si une portée est ouverte
+    static void appendBatch(Journal journal, byte type, List<byte[]> payloads, Runnable check, Runnable apply) {
+        long appended = journal.appendBatchDeferred(type, payloads, check, apply);
+        DeferredDurability scope = CURRENT.get();
+        if (scope == null) {
+            journal.awaitDurable(appended);
+        } else {
+            scope.defer(journal, appended);
+        }
+    }
+
+    private void defer(Journal target, long appended) {
+        if (journal == null || journal == target) {
+            journal = target;
+            sequence = Math.max(sequence, appended);
+        } else {
+            if (others == null) {
+                others = new HashMap<>();
+            }
+            others.merge(target, appended, Math::max);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package app.repositories;
+
+import app.models.Account;
+import app.models.Money;
+import app.persistence.AccountCodec;
+import app.persistence.Journal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * AccountInterface durable : chaque save/delete est journalisé avant d'être appliqué
+ * au repository en mémoire (l'état complet du compte, solde compris, est écrit)
+ */
+public class JournaledAccountRepository implements AccountInterface {
+
+    private final Journal journal;
+    private final AccountInterface delegate;
+
+    public JournaledAccountRepository(Journal journal, AccountInterface delegate) {
+        this.journal = journal;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void save(Account account) {
+        if (account == null || account.getId() == null) {
+            return;
+        }
+        DeferredDurability.append(journal, AccountCodec.SAVED_RECORD_TYPE, AccountCodec.encode(account), () -> delegate.save(account));
+    }
+
+    @Override
+    public void saveAll(List<Account> accounts) {
+        List<Account> valid = new ArrayList<>(accounts.size());
+        List<byte[]> records = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            if (account != null && account.getId() != null) {
+                valid.add(account);
+                records.add(AccountCodec.encode(account));
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        DeferredDurability.appendBatch(journal, AccountCodec.SAVED_RECORD_TYPE, records, () -> delegate.saveAll(valid));
+    }
+
+    @Override
+    public Account findById(UUID id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Account> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Account> findByUserId(UUID userId) {
+        return delegate.findByUserId(userId);
+    }
+
+    @Override
+    public int countByUserId(UUID userId) {
+        return delegate.countByUserId(userId);
+    }
+
+    @Override
+    public boolean existsByUserId(UUID userId) {
+        return delegate.existsByUserId(userId);
+    }
+
+    @Override
+    public void delete(Account account) {
+        if (account == null || account.getId() == null) {
+            return;
+        }
+        DeferredDurability.append(journal, AccountCodec.DELETED_RECORD_TYPE, AccountCodec.encodeDeletion(account.getId()), () -> delegate.delete(account));
+    }
+
+    @Override
+    public boolean existsById(UUID id) {
+        return delegate.existsById(id);
+    }
+
+    @Override
+    public void onBalanceChanged(Account account) {
+        delegate.onBalanceChanged(account);
+    }
+
+    @Override
+    public List<Account> findTopByBalance(int n) {
+        return delegate.findTopByBalance(n);
+    }
+
+    @Override
+    public List<Account> findByBalanceBetween(Money min, Money max) {
+        return delegate.findByBalanceBetween(min, max);
+    }
+}
@@ -0,0 +1,94 @@
+package app.repositories;
+
+import app.models.User;
+import app.persistence.Journal;
+import app.persistence.UserCodec;
+import app.utils.ValidationUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AuthInterface durable : chaque save/delete est journalisé avant d'être appliqué
+ * au repository en mémoire, dans l'ordre du journal
+ */
+public class JournaledAuthRepository implements AuthInterface {
+
+    private final Journal journal;
+    private final AuthInterface delegate;
+
+    public JournaledAuthRepository(Journal journal, AuthInterface delegate) {
+        this.journal = journal;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public User findById(String id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public void save(User user) {
+        // Vérifié sous le verrou d'append, avant d'écrire dans le journal : l'email ne peut pas être
+        // pris entre la vérification et l'écriture, et un save refusé n'est jamais rejoué
+        DeferredDurability.append(journal, UserCodec.SAVED_RECORD_TYPE, UserCodec.encode(user),
+                () -> checkEmails(List.of(user)), () -> delegate.save(user));
+    }
+
+    @Override
+    public void saveAll(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        List<byte[]> records = new ArrayList<>(users.size());
+        for (User user : users) {
+            records.add(UserCodec.encode(user));
+        }
+        DeferredDurability.appendBatch(journal, UserCodec.SAVED_RECORD_TYPE, records, () -> checkEmails(users), () -> delegate.saveAll(users));
+    }
+
+    // Tout le lot est refusé si un email appartient déjà à un autre utilisateur, en mémoire ou dans le lot
+    private void checkEmails(List<User> users) {
+        Map<String, String> claimed = new HashMap<>();
+        for (User user : users) {
+            String id = user.getId().toString();
+            User owner = delegate.findByEmail(user.getEmail());
+            if (owner != null && !owner.getId().equals(user.getId())) {
+                throw new IllegalStateException("Cet email est déjà utilisé!");
+            }
+            String email = ValidationUtils.normalizeEmail(user.getEmail());
+            if (email != null) {
+                String batchOwner = claimed.putIfAbsent(email, id);
+                if (batchOwner != null && !batchOwner.equals(id)) {
+                    throw new IllegalStateException("Cet email est déjà utilisé!");
+                }
+            }
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        DeferredDurability.append(journal, UserCodec.DELETED_RECORD_TYPE, UserCodec.encodeDeletion(id), () -> delegate.delete(id));
+    }
+
+    @Override
+    public List<User> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public User findByFullName(String fullName) {
+        return delegate.findByFullName(fullName);
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return delegate.existsByEmail(email);
+    }
+}
@@ -0,0 +1,100 @@
+package app.repositories;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+import app.models.Money;
+import app.models.Transaction;
+import app.persistence.Journal;
+import app.persistence.TransactionCodec;
+
+/**
+ * TransactionInterface durable : chaque save est écrit dans le journal (write-ahead)
+ * puis appliqué au repository en mémoire, qui sert toutes les lectures.
+ * La reprise (snapshot + rejeu du journal) est faite par DurableStore.
+ */
+public class JournaledTransactionRepository implements TransactionInterface {
+
+    private final Journal journal;
+    private final TransactionInterface delegate;
+
+    public JournaledTransactionRepository(Journal journal, TransactionInterface delegate) {
+        this.journal = journal;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void save(Transaction transaction) {
+        if (transaction == null || transaction.getId() == null)
+            return;
+        // Attend le fsync groupé selon la config du journal
+        DeferredDurability.append(journal, TransactionCodec.RECORD_TYPE, TransactionCodec.encode(transaction), () -> delegate.save(transaction));
+    }
+
+    @Override
+    public void saveAll(List<Transaction> transactions) {
+        List<Transaction> valid = new ArrayList<>(transactions.size());
+        List<byte[]> records = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            if (transaction != null && transaction.getId() != null) {
+                valid.add(transaction);
+                records.add(TransactionCodec.encode(transaction));
+            }
+        }
+        if (valid.isEmpty())
+            return;
+        // Un seul passage dans le journal et un seul fsync pour tout le lot
+        DeferredDurability.appendBatch(journal, TransactionCodec.RECORD_TYPE, records, () -> delegate.saveAll(valid));
+    }
+
+    @Override
+    public Transaction findById(UUID id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Transaction> findByAccountId(UUID accountId) {
+        return delegate.findByAccountId(accountId);
+    }
+
+    @Override
+    public List<Transaction> findLastByAccountId(UUID accountId, int limit) {
+        return delegate.findLastByAccountId(accountId, limit);
+    }
+
+    @Override
+    public List<Transaction> findByAccountIdBetween(UUID accountId, LocalDateTime from, LocalDateTime to) {
+        return delegate.findByAccountIdBetween(accountId, from, to);
+    }
+
+    @Override
+    public List<Transaction> findByAccountIdBefore(UUID accountId, LocalDateTime cursor, int limit) {
+        return delegate.findByAccountIdBefore(accountId, cursor, limit);
+    }
+
+    @Override
+    public TransactionPage findPageByAccountId(UUID accountId, TransactionCursor after, int pageSize) {
+        return delegate.findPageByAccountId(accountId, after, pageSize);
+    }
+
+    @Override
+    public boolean ifExistsById(UUID id) {
+        return delegate.ifExistsById(id);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Transaction> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public TransactionSummary summarize(UUID accountId, LocalDate from, LocalDate to) {
+        return delegate.summarize(accountId, from, to);
+    }
+
+    @Override
+    public Money balanceAsOf(UUID accountId, LocalDateTime at) {
+        return delegate.balanceAsOf(accountId, at);
+    }
+}
@@ -0,0 +1,37 @@
+package app.repositories;
+
+import app.models.Transaction;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Curseur de pagination par clé : position (date, id) de la dernière transaction lue
+ */
+public final class TransactionCursor {
+
+    private final LocalDateTime date;
+    private final UUID id;
+
+    public TransactionCursor(LocalDateTime date, UUID id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public static TransactionCursor of(Transaction transaction) {
+        return new TransactionCursor(transaction.getDateTransaction(), transaction.getId());
+    }
+
+    public LocalDateTime getDate() {
+        return date;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    // Ordre (date, id), le même que celui des index par compte
+    int compareTo(Transaction transaction) {
+        int byDate = date.compareTo(transaction.getDateTransaction());
+        return byDate != 0 ? byDate : id.compareTo(transaction.getId());
+    }
+}
@@ -0,0 +1,218 @@
+package app.repositories;
+
+import app.models.Transaction;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Index des transactions d'un compte, trié par date (puis par id pour départager)
+ * Les ajouts chronologiques sont de simples appends, les requêtes par date
+ * passent par une recherche dichotomique : O(log n + k)
+ * Le solde à une date s'appuie sur des points de contrôle (BalanceCheckpoints)
+ */
+class TransactionIndex {
+
+    static final Comparator<Transaction> CHRONOLOGICAL =
+            Comparator.comparing(Transaction::getDateTransaction).thenComparing(Transaction::getId);
+
+    private final List<Transaction> entries = new ArrayList<>();
+    private final BalanceCheckpoints checkpoints = new BalanceCheckpoints();
+    private final IntToLongFunction amountAt = i -> BalanceCheckpoints.signedAmount(entries.get(i));
+
+    void add(Transaction transaction) {
+        int size = entries.size();
+        if (size == 0 || CHRONOLOGICAL.compare(entries.get(size - 1), transaction) <= 0) {
+            entries.add(transaction);
+            checkpoints.update(size, entries.size(), amountAt);
+            return;
+        }
+        // Transaction antidatée : insertion à sa place
+        int position = Collections.binarySearch(entries, transaction, CHRONOLOGICAL);
+        position = position < 0 ? -position - 1 : position;
+        entries.add(position, transaction);
+        checkpoints.update(position, entries.size(), amountAt);
+    }
+
+    /**
+     * Ajout d'un lot déjà trié : append si le lot suit l'index, sinon une seule fusion O(n + k)
+     */
+    void addAll(List<Transaction> sorted) {
+        if (sorted.isEmpty()) {
+            return;
+        }
+        int size = entries.size();
+        if (size == 0 || CHRONOLOGICAL.compare(entries.get(size - 1), sorted.get(0)) <= 0) {
+            entries.addAll(sorted);
+            checkpoints.update(size, entries.size(), amountAt);
+            return;
+        }
+        List<Transaction> merged = new ArrayList<>(size + sorted.size());
+        int left = 0;
+        int right = 0;
+        int firstChanged = -1;
+        while (left < size && right < sorted.size()) {
+            if (CHRONOLOGICAL.compare(entries.get(left), sorted.get(right)) <= 0) {
+                merged.add(entries.get(left++));
+            } else {
+                if (firstChanged < 0) {
+                    firstChanged = merged.size();
+                }
+                merged.add(sorted.get(right++));
+            }
+        }
+        merged.addAll(entries.subList(left, size));
+        merged.addAll(sorted.subList(right, sorted.size()));
+        entries.clear();
+        entries.addAll(merged);
+        checkpoints.update(firstChanged < 0 ? size : firstChanged, entries.size(), amountAt);
+    }
+
+    /**
+     * Dernière occurrence de chaque id d'un lot, dans l'ordre du lot (comme des save successifs)
+     * Les transactions sans id sont ignorées
+     */
+    static Collection<Transaction> lastById(List<Transaction> transactions) {
+        Map<UUID, Transaction> byId = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            if (transaction != null && transaction.getId() != null) {
+                byId.remove(transaction.getId());
+                byId.put(transaction.getId(), transaction);
+            }
+        }
+        return byId.values();
+    }
+
+    /**
+     * Regroupe un lot par compte, chaque groupe trié dans l'ordre de l'index
+     */
+    static Map<UUID, List<Transaction>> groupByAccount(Collection<Transaction> transactions) {
+        Map<UUID, List<Transaction>> byAccount = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getAccountId() != null && transaction.getDateTransaction() != null) {
+                byAccount.computeIfAbsent(transaction.getAccountId(), k -> new ArrayList<>()).add(transaction);
+            }
+        }
+        for (List<Transaction> group : byAccount.values()) {
+            group.sort(CHRONOLOGICAL);
+        }
+        return byAccount;
+    }
+
+    boolean remove(Transaction transaction) {
+        int position = Collections.binarySearch(entries, transaction, CHRONOLOGICAL);
+        if (position < 0) {
+            // Instance modifiée depuis son indexation : recherche par identité
+            if (!entries.removeIf(entry -> entry == transaction)) {
+                return false;
+            }
+            checkpoints.update(0, entries.size(), amountAt);
+            return true;
+        }
+        entries.remove(position);
+        checkpoints.update(position, entries.size(), amountAt);
+        return true;
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    List<Transaction> all() {
+        return new ArrayList<>(entries);
+    }
+
+    /**
+     * Les n transactions les plus récentes, en ordre chronologique
+     */
+    List<Transaction> last(int limit) {
+        int size = entries.size();
+        return new ArrayList<>(entries.subList(Math.max(0, size - Math.max(0, limit)), size));
+    }
+
+    /**
+     * Transactions dans [from, to[, en ordre chronologique
+     */
+    List<Transaction> between(LocalDateTime from, LocalDateTime to) {
+        int start = firstIndexAtOrAfter(from);
+        int end = firstIndexAtOrAfter(to);
+        if (start >= end) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(entries.subList(start, end));
+    }
+
+    /**
+     * Solde en centimes après toutes les transactions datées au plus tard à date
+     * O(log n + INTERVAL) : point de contrôle puis au plus un bloc d'entrées
+     */
+    long balanceAsOf(LocalDateTime date) {
+        return checkpoints.balanceOfFirst(firstIndexAfter(date), amountAt);
+    }
+
+    /**
+     * Les n transactions les plus récentes strictement avant le curseur, en ordre chronologique
+     */
+    List<Transaction> before(LocalDateTime cursor, int limit) {
+        int end = firstIndexAtOrAfter(cursor);
+        return new ArrayList<>(entries.subList(Math.max(0, end - Math.max(0, limit)), end));
+    }
+
+    /**
+     * Page de transactions strictement après le curseur (null = depuis le début)
+     */
+    TransactionPage after(TransactionCursor cursor, int limit) {
+        int start = cursor == null ? 0 : firstIndexAfter(cursor);
+        int end = Math.min(entries.size(), start + Math.max(1, limit));
+        return new TransactionPage(new ArrayList<>(entries.subList(start, end)), end < entries.size());
+    }
+
+    // Premier indice strictement après le curseur dans l'ordre (date, id)
+    private int firstIndexAfter(TransactionCursor cursor) {
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cursor.compareTo(entries.get(middle)) >= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Premier indice dont la date est > date (borne supérieure)
+    private int firstIndexAfter(LocalDateTime date) {
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries.get(middle).getDateTransaction().isAfter(date)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    // Premier indice dont la date est >= date (borne inférieure)
+    private int firstIndexAtOrAfter(LocalDateTime date) {
+        int low = 0;
+        int high = entries.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries.get(middle).getDateTransaction().isBefore(date)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
\ No newline at end of file
@@ -1,12 +1,90 @@
 package app.repositories;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.UUID;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import app.models.Money;
 import app.models.Transaction;
+import app.models.TransactionType;
 
 public interface TransactionInterface {
     void save(Transaction transaction);
+    // Écriture groupée : les implémentations amortissent index, verrous et flush sur tout le lot
+    default void saveAll(List<Transaction> transactions) {
+        for (Transaction transaction : transactions)
+            save(transaction);
+    }
     Transaction findById(UUID id);
+    // Transactions du compte triées par date
     List<Transaction> findByAccountId(UUID accountId);
+    // Les n dernières transactions du compte, en ordre chronologique
+    List<Transaction> findLastByAccountId(UUID accountId, int limit);
+    // Transactions du compte dans [from, to[
+    List<Transaction> findByAccountIdBetween(UUID accountId, LocalDateTime from, LocalDateTime to);
+    // Les n transactions précédant le curseur (exclu), en ordre chronologique
+    List<Transaction> findByAccountIdBefore(UUID accountId, LocalDateTime cursor, int limit);
+    // Page (pagination par clé) des transactions du compte après le curseur, null pour la première page
+    TransactionPage findPageByAccountId(UUID accountId, TransactionCursor after, int pageSize);
     boolean ifExistsById(UUID id);
-}
+    // Parcours de toutes les transactions, sans copie (faiblement cohérent en concurrence)
+    void forEach(Consumer<? super Transaction> action);
+
+    /**
+     * Nombre, crédits, débits et flux net des transactions du compte datées des jours [from, to[
+     * Par défaut : parcours de la période ; les implémentations maintiennent des cumuls journaliers
+     */
+    default TransactionSummary summarize(UUID accountId, LocalDate from, LocalDate to) {
+        return TransactionSummary.of(findByAccountIdBetween(accountId, from.atStartOfDay(), to.atStartOfDay()));
+    }
+
+    /**
+     * Solde du compte après toutes ses transactions datées au plus tard à at
+     * (montants signés, transactions UNKNOWN ignorées comme dans BalanceRebuilder)
+     * Par défaut : rejeu de l'historique ; les implémentations lisent le point de contrôle le plus proche
+     */
+    default Money balanceAsOf(UUID accountId, LocalDateTime at) {
+        long balance = 0;
+        try (Stream<Transaction> history = streamByAccountId(accountId, 1024)) {
+            for (Iterator<Transaction> it = history.iterator(); it.hasNext();) {
+                Transaction transaction = it.next();
+                if (transaction.getDateTransaction().isAfter(at))
+                    break;
+                if (transaction.getType() != TransactionType.UNKNOWN)
+                    balance = Math.addExact(balance, transaction.getMontant().getMinorUnits());
+            }
+        }
+        return Money.ofMinor(balance);
+    }
+
+    /**
+     * Transactions du compte en ordre chronologique, chargées page par page :
+     * jamais plus d'une page en mémoire
+     */
+    default Stream<Transaction> streamByAccountId(UUID accountId, int pageSize) {
+        Iterator<Transaction> iterator = new Iterator<Transaction>() {
+            private TransactionPage page = findPageByAccountId(accountId, null, pageSize);
+            private Iterator<Transaction> current = page.getTransactions().iterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && page.hasNext()) {
+                    page = findPageByAccountId(accountId, page.getNext(), pageSize);
+                    current = page.getTransactions().iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Transaction next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package app.repositories;
+
+import app.models.Transaction;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Une page de transactions en ordre chronologique et le curseur de la page suivante
+ */
+public final class TransactionPage {
+
+    private final List<Transaction> transactions;
+    private final TransactionCursor next;
+
+    public TransactionPage(List<Transaction> transactions, boolean hasMore) {
+        this.transactions = Collections.unmodifiableList(transactions);
+        this.next = hasMore && !transactions.isEmpty()
+                ? TransactionCursor.of(transactions.get(transactions.size() - 1))
+                : null;
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    // null sur la dernière page
+    public TransactionCursor getNext() {
+        return next;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+}
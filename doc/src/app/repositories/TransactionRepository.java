@@ -1,16 +1,55 @@
 package app.repositories;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import app.models.Money;
 import app.models.Transaction;
 
 public class TransactionRepository implements TransactionInterface{
 
     Map<UUID,Transaction> transactions = new HashMap<>();
 
+    // Index par compte, trié par date, alimenté à chaque save
+    private Map<UUID,TransactionIndex> transactionsByAccount = new HashMap<>();
+
+    // Cumuls journaliers par compte, pour summarize en O(log jours)
+    private Map<UUID,DailyRollup> rollupsByAccount = new HashMap<>();
+
+    // Compte sous lequel chaque transaction est indexée (l'instance a pu changer de compte depuis)
+    private Map<UUID,UUID> indexedAccounts = new HashMap<>();
+
     @Override
     public  void save(Transaction transaction){
-        if(transaction != null && transaction.getId() != null)
-            transactions.put(transaction.getId(),transaction);
+        if(transaction != null && transaction.getId() != null) {
+            Transaction previous = transactions.put(transaction.getId(),transaction);
+            if (previous != null)
+                unindex(previous);
+            index(transaction);
+        }
+    }
+
+    @Override
+    public void saveAll(List<Transaction> batch) {
+        // Un id présent deux fois dans le lot : seule la dernière version est indexée, comme avec save
+        Collection<Transaction> latest = TransactionIndex.lastById(batch);
+        List<Transaction> saved = new ArrayList<>(latest.size());
+        for (Transaction transaction : latest) {
+            Transaction previous = transactions.put(transaction.getId(), transaction);
+            if (previous != null)
+                unindex(previous);
+            saved.add(transaction);
+        }
+        // Une insertion groupée par compte au lieu d'une insertion par transaction
+        TransactionIndex.groupByAccount(saved).forEach((accountId, group) -> {
+            transactionsByAccount.computeIfAbsent(accountId, k -> new TransactionIndex()).addAll(group);
+            DailyRollup rollup = rollupsByAccount.computeIfAbsent(accountId, k -> new DailyRollup());
+            for (Transaction transaction : group) {
+                rollup.add(transaction);
+                indexedAccounts.put(transaction.getId(), accountId);
+            }
+        });
     }
 
     public  Transaction findById(UUID id){
@@ -18,16 +57,70 @@ public class TransactionRepository implements TransactionInterface{
     }
 
     public List<Transaction> findByAccountId(UUID accountId) {
-        List<Transaction> result = new ArrayList<>();
+        TransactionIndex index = transactionsByAccount.get(accountId);
+        return index == null ? new ArrayList<>() : index.all();
+    }
 
-        for (Transaction transaction : transactions.values()) {
-            if (transaction != null && accountId != null && accountId.equals(transaction.getAccountId()))
-                result.add(transaction);
-        }
-        return result;
+    public List<Transaction> findLastByAccountId(UUID accountId, int limit) {
+        TransactionIndex index = transactionsByAccount.get(accountId);
+        return index == null ? new ArrayList<>() : index.last(limit);
+    }
+
+    public List<Transaction> findByAccountIdBetween(UUID accountId, LocalDateTime from, LocalDateTime to) {
+        TransactionIndex index = transactionsByAccount.get(accountId);
+        return index == null ? new ArrayList<>() : index.between(from, to);
+    }
+
+    public List<Transaction> findByAccountIdBefore(UUID accountId, LocalDateTime cursor, int limit) {
+        TransactionIndex index = transactionsByAccount.get(accountId);
+        return index == null ? new ArrayList<>() : index.before(cursor, limit);
+    }
+
+    public TransactionPage findPageByAccountId(UUID accountId, TransactionCursor after, int pageSize) {
+        TransactionIndex index = transactionsByAccount.get(accountId);
+        return index == null ? new TransactionPage(new ArrayList<>(), false) : index.after(after, pageSize);
+    }
+
+    @Override
+    public TransactionSummary summarize(UUID accountId, LocalDate from, LocalDate to) {
+        DailyRollup rollup = rollupsByAccount.get(accountId);
+        return rollup == null ? TransactionSummary.EMPTY : rollup.summarize(from, to);
+    }
+
+    @Override
+    public Money balanceAsOf(UUID accountId, LocalDateTime at) {
+        TransactionIndex index = transactionsByAccount.get(accountId);
+        return Money.ofMinor(index == null ? 0 : index.balanceAsOf(at));
     }
 
     public  boolean ifExistsById(UUID id){
         return  transactions.containsKey(id);
     }
+
+    public void forEach(Consumer<? super Transaction> action) {
+        transactions.values().forEach(action);
+    }
+
+    private void index(Transaction transaction) {
+        if (transaction.getAccountId() == null || transaction.getDateTransaction() == null)
+            return;
+        transactionsByAccount.computeIfAbsent(transaction.getAccountId(), k -> new TransactionIndex()).add(transaction);
+        rollupsByAccount.computeIfAbsent(transaction.getAccountId(), k -> new DailyRollup()).add(transaction);
+        indexedAccounts.put(transaction.getId(), transaction.getAccountId());
+    }
+
+    // Retire les valeurs indexées (compte, jour, montant), pas celles de l'instance si elle a été modifiée
+    private void unindex(Transaction transaction) {
+        UUID accountId = indexedAccounts.remove(transaction.getId());
+        if (accountId == null)
+            return;
+        TransactionIndex index = transactionsByAccount.get(accountId);
+        if (index != null && index.remove(transaction)) {
+            rollupsByAccount.get(accountId).remove(transaction);
+            if (index.isEmpty()) {
+                transactionsByAccount.remove(accountId);
+                rollupsByAccount.remove(accountId);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package app.repositories;
+
+import app.models.Money;
+import app.models.Transaction;
+import java.util.List;
+
+/**
+ * Résumé des transactions d'un compte sur une période : nombre, crédits, débits et flux net
+ */
+public final class TransactionSummary {
+
+    public static final TransactionSummary EMPTY = new TransactionSummary(0, 0, 0);
+
+    private final long count;
+    private final long creditsMinor;
+    private final long debitsMinor;
+
+    public TransactionSummary(long count, long creditsMinor, long debitsMinor) {
+        this.count = count;
+        this.creditsMinor = creditsMinor;
+        this.debitsMinor = debitsMinor;
+    }
+
+    // Calcul direct par parcours (implémentation par défaut de TransactionInterface.summarize)
+    public static TransactionSummary of(List<Transaction> transactions) {
+        long credits = 0;
+        long debits = 0;
+        for (Transaction transaction : transactions) {
+            long minor = transaction.getMontant().getMinorUnits();
+            if (minor > 0) {
+                credits = Math.addExact(credits, minor);
+            } else {
+                debits = Math.addExact(debits, minor);
+            }
+        }
+        return new TransactionSummary(transactions.size(), credits, debits);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // Somme des montants positifs (dépôts, virements reçus)
+    public Money getCredits() {
+        return Money.ofMinor(creditsMinor);
+    }
+
+    // Somme des montants négatifs (retraits, virements émis), négative ou nulle
+    public Money getDebits() {
+        return Money.ofMinor(debitsMinor);
+    }
+
+    public Money getNet() {
+        return Money.ofMinor(Math.addExact(creditsMinor, debitsMinor));
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + " credits=" + getCredits() + " debits=" + getDebits() + " net=" + getNet();
+    }
+}
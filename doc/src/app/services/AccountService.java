@@ -1,19 +1,48 @@
 package app.services;
 
 import app.models.Account;
+import app.models.Money;
+import app.models.Transaction;
 import app.models.User;
 import app.repositories.AccountInterface;
 import app.repositories.AuthInterface;
-import java.math.BigDecimal;
+import app.utils.IdClock;
+import app.utils.TimeOrderedIdClock;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class AccountService {
     private AccountInterface accountRepository;
     private AuthInterface authRepository;
+    private IdClock idClock;
+    private LedgerInterface ledger;
     
     public AccountService(AccountInterface accountRepository, AuthInterface authRepository) {
+        this(accountRepository, authRepository, TimeOrderedIdClock.getDefault());
+    }
+
+    // Sans moteur partagé : soldes seuls, sans historique de transactions
+    public AccountService(AccountInterface accountRepository, AuthInterface authRepository, IdClock idClock) {
+        this(accountRepository, authRepository, idClock,
+                new LedgerEngine(accountRepository, null, idClock, LedgerEngine.DEFAULT_STRIPES));
+    }
+
+    public AccountService(AccountInterface accountRepository, AuthInterface authRepository, LedgerInterface ledger) {
+        this(accountRepository, authRepository, TimeOrderedIdClock.getDefault(), ledger);
+    }
+
+    public AccountService(AccountInterface accountRepository, AuthInterface authRepository, IdClock idClock, LedgerInterface ledger) {
         this.accountRepository = accountRepository;
         this.authRepository = authRepository;
+        this.idClock = idClock;
+        this.ledger = ledger;
+    }
+
+    // Moteur partagé par tous les services qui modifient des soldes
+    public LedgerInterface getLedger() {
+        return ledger;
     }
     
     // Créer un nouveau compte bancaire
@@ -28,27 +57,55 @@ public class AccountService {
         }
         
         // Créer le nouveau compte
-        UUID accountId = UUID.randomUUID();
-        Account newAccount = new Account(accountId, userId, accountType, BigDecimal.ZERO);
+        UUID accountId = idClock.nextId();
+        Account newAccount = new Account(accountId, userId, accountType, Money.ZERO);
         
         accountRepository.save(newAccount);
         
-        user.addAccount(newAccount);
+        user.addAccount(accountId);
         
         authRepository.save(user);
         
         return true;
     }
 
+    // Comptes de l'utilisateur dans l'ordre de création, lus dans le repository de comptes
+    public List<Account> getAccounts(UUID userId) {
+        User user = authRepository.findById(userId.toString());
+        if (user == null) {
+            return new ArrayList<>();
+        }
+        List<Account> accounts = new ArrayList<>(user.getAccountCount());
+        for (UUID accountId : user.getAccountIds()) {
+            Account account = accountRepository.findById(accountId);
+            if (account != null) {
+                accounts.add(account);
+            }
+        }
+        return accounts;
+    }
+
     public int getActiveAccountCount(UUID userId) {
-        java.util.List<Account> accounts = accountRepository.findByUserId(userId);
-        if (accounts == null)
-            return 0;
-        return accounts.size();
+        return accountRepository.countByUserId(userId);
     }
 
     public boolean hasActiveAccounts(UUID userId){
-        return getActiveAccountCount(userId) > 0;
+        return accountRepository.existsByUserId(userId);
+    }
+
+    // Les n comptes aux soldes les plus élevés (index ordonné du repository, sans tri complet)
+    public List<Account> getTopAccounts(int n) {
+        return accountRepository.findTopByBalance(n);
+    }
+
+    // Comptes dont le solde est au moins égal au seuil, par solde croissant
+    public List<Account> getAccountsAbove(Money seuil) {
+        return accountRepository.findByBalanceBetween(seuil, Money.ofMinor(Long.MAX_VALUE));
+    }
+
+    // Comptes à solde nul (supprimables)
+    public List<Account> getEmptyAccounts() {
+        return accountRepository.findByBalanceBetween(Money.ZERO, Money.ZERO);
     }
     // Supprimer un compte
     public boolean deleteAccount(UUID userId, UUID accountId) {
@@ -57,21 +114,19 @@ public class AccountService {
             return false;
         }
         
-        Account accountToDelete = user.getAccountById(accountId);
+        Account accountToDelete = findOwnedAccount(user, accountId);
         if (accountToDelete == null) {
             return false; // Compte introuvable
         }
         
-        // Validation métier : ne pas supprimer un compte avec solde positif
-        if (accountToDelete.getSolde().compareTo(BigDecimal.ZERO) > 0) {
-            throw new IllegalStateException("Impossible de supprimer un compte avec un solde positif!");
+        // Vérification du solde nul et suppression par le registre, sérialisées avec les opérations
+        // sur ce compte (IllegalStateException si le solde est positif)
+        if (!ledger.deleteAccount(accountId)) {
+            return false;
         }
         
-        // Supprimer du repository
-        accountRepository.delete(accountToDelete);
-        
         // Supprimer de l'utilisateur
-        user.removeAccount(accountToDelete);
+        user.removeAccount(accountId);
         
         // Mettre à jour l'utilisateur
         authRepository.save(user);
@@ -80,8 +135,8 @@ public class AccountService {
     }
     
     // Effectuer un dépôt
-    public boolean deposer(UUID userId, UUID accountId, BigDecimal montant) {
-        if (montant.compareTo(BigDecimal.ZERO) <= 0) {
+    public boolean deposer(UUID userId, UUID accountId, Money montant) {
+        if (!montant.isPositive()) {
             throw new IllegalArgumentException("Le montant doit être positif!");
         }
         
@@ -90,25 +145,20 @@ public class AccountService {
             return false;
         }
         
-        Account account = user.getAccountById(accountId);
+        Account account = findOwnedAccount(user, accountId);
         if (account == null) {
             return false;
         }
         
-        // Effectuer le dépôt directement sur le solde
-        BigDecimal nouveauSolde = account.getSolde().add(montant);
-        account.setSolde(nouveauSolde);
-        
-        // Sauvegarder les modifications
-        accountRepository.save(account);
-        authRepository.save(user);
+        // Dépôt atomique, exécuté par le registre
+        ledger.deposit(accountId, montant);
         
         return true;
     }
     
     // Effectuer un retrait
-    public boolean retirer(UUID userId, UUID accountId, BigDecimal montant) {
-        if (montant.compareTo(BigDecimal.ZERO) <= 0) {
+    public boolean retirer(UUID userId, UUID accountId, Money montant) {
+        if (!montant.isPositive()) {
             throw new IllegalArgumentException("Le montant doit être positif!");
         }
         
@@ -117,27 +167,43 @@ public class AccountService {
             return false;
         }
         
-        Account account = user.getAccountById(accountId);
+        Account account = findOwnedAccount(user, accountId);
         if (account == null) {
             return false;
         }
         
-        // Vérifier le solde suffisant
-        if (account.getSolde().compareTo(montant) < 0) {
-            throw new IllegalStateException("Solde insuffisant!");
-        }
-        
-        // Effectuer le retrait directement sur le solde
-        BigDecimal nouveauSolde = account.getSolde().subtract(montant);
-        account.setSolde(nouveauSolde);
-        
-        // Sauvegarder les modifications
-        accountRepository.save(account);
-        authRepository.save(user);
+        // Vérification du solde et retrait en une seule opération atomique
+        ledger.withdraw(accountId, montant);
         
         return true;
     }
     
+    // Dépôt asynchrone : la future est complétée une fois l'opération journalisée
+    public CompletableFuture<Transaction> deposerAsync(UUID userId, UUID accountId, Money montant) {
+        if (!ownsAccount(userId, accountId)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Compte introuvable: " + accountId));
+        }
+        return ledger.depositAsync(accountId, montant);
+    }
+    
+    // Retrait asynchrone : échoue avec IllegalStateException si le solde est insuffisant
+    public CompletableFuture<Transaction> retirerAsync(UUID userId, UUID accountId, Money montant) {
+        if (!ownsAccount(userId, accountId)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Compte introuvable: " + accountId));
+        }
+        return ledger.withdrawAsync(accountId, montant);
+    }
+    
+    private boolean ownsAccount(UUID userId, UUID accountId) {
+        User user = authRepository.findById(userId.toString());
+        return user != null && user.hasAccount(accountId);
+    }
+
+    // Le User ne garde que les ids : le compte est lu dans le repository (une seule copie en mémoire)
+    private Account findOwnedAccount(User user, UUID accountId) {
+        return user.hasAccount(accountId) ? accountRepository.findById(accountId) : null;
+    }
+    
     // Validation des types de comptes
     private boolean isValidAccountType(String accountType) {
         return accountType.equals("Compte Courant") ||
@@ -0,0 +1,66 @@
+package app.services;
+
+import app.models.Money;
+
+/**
+ * Statistiques d'un groupe de transactions (montants signés : la somme est le flux net)
+ * Accumulateur mutable pendant l'agrégation, à lire seulement une fois le résultat rendu
+ */
+public final class AggregateStats {
+
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    AggregateStats() {
+    }
+
+    void add(long amountMinor) {
+        count++;
+        sum = Math.addExact(sum, amountMinor);
+        if (amountMinor < min) {
+            min = amountMinor;
+        }
+        if (amountMinor > max) {
+            max = amountMinor;
+        }
+    }
+
+    void merge(AggregateStats other) {
+        if (other == null || other.count == 0) {
+            return;
+        }
+        count += other.count;
+        sum = Math.addExact(sum, other.sum);
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Money getSum() {
+        return Money.ofMinor(sum);
+    }
+
+    // ZERO pour un groupe vide
+    public Money getMin() {
+        return Money.ofMinor(count == 0 ? 0 : min);
+    }
+
+    public Money getMax() {
+        return Money.ofMinor(count == 0 ? 0 : max);
+    }
+
+    // Moyenne arrondie au centime le plus proche
+    public Money getAverage() {
+        return Money.ofMinor(count == 0 ? 0 : Math.round((double) sum / count));
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + " sum=" + getSum() + " min=" + getMin() + " max=" + getMax() + " avg=" + getAverage();
+    }
+}
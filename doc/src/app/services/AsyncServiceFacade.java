@@ -0,0 +1,302 @@
+package app.services;
+
+import app.models.Money;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Façade asynchrone des services pour un serveur très concurrent
+ *
+ * - chaque requête s'exécute sur son propre thread virtuel (Java 21+, détecté à l'exécution) ;
+ *   sur une JVM plus ancienne, sur un pool fixe de threads plateforme
+ * - les services ne contiennent aucun bloc synchronized : leurs attentes (verrous ReentrantLock,
+ *   group commit du journal) libèrent le thread porteur au lieu de l'épingler
+ * - concurrence bornée par compte : des permis striés (comme les verrous de LedgerEngine),
+ *   deux comptes d'une même bande partagent donc leur limite ; un virement prend les permis
+ *   des deux bandes dans l'ordre croissant. Création et suppression de compte prennent aussi
+ *   le permis de l'utilisateur (même espace de bandes) : elles sont bornées par utilisateur, la
+ *   liste de comptes du User restant protégée par sa copie sur écriture quelle que soit la limite
+ * - les permis sont accordés de façon asynchrone : une requête sans permis attend dans la file
+ *   de sa bande sans occuper de thread, et n'est confiée à l'exécuteur qu'une fois ses permis
+ *   obtenus ; un compte très sollicité ne peut donc pas monopoliser le pool fixe
+ * - délai : la future échoue avec TimeoutException au-delà du délai configuré
+ * - annulation (cancel ou délai) : une requête encore en attente de permis n'est jamais exécutée ;
+ *   une requête déjà commencée va à son terme (une écriture n'est pas interrompue à mi-chemin)
+ */
+public class AsyncServiceFacade implements AutoCloseable {
+
+    private static final int STRIPES = 1024;
+    private static final int FALLBACK_THREADS = Math.max(16, 8 * Runtime.getRuntime().availableProcessors());
+
+    // États d'une requête : en attente, en cours, abandonnée
+    private static final int WAITING = 0;
+    private static final int RUNNING = 1;
+    private static final int ABANDONED = 2;
+
+    private final AuthService authService;
+    private final AccountService accountService;
+    private final TransactionService transactionService;
+    private final Duration timeout;
+    private final Permits[] permits;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    /**
+     * @param maxConcurrentPerAccount Nombre maximal de requêtes simultanées sur un même compte
+     * @param timeout Délai maximal de réponse de chaque requête, attente des permis comprise
+     */
+    public AsyncServiceFacade(AuthService authService, AccountService accountService, TransactionService transactionService,
+            int maxConcurrentPerAccount, Duration timeout) {
+        if (maxConcurrentPerAccount < 1) {
+            throw new IllegalArgumentException("La concurrence par compte doit être positive!");
+        }
+        this.authService = authService;
+        this.accountService = accountService;
+        this.transactionService = transactionService;
+        this.timeout = timeout;
+        this.permits = new Permits[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            permits[i] = new Permits(maxConcurrentPerAccount);
+        }
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : Executors.newFixedThreadPool(FALLBACK_THREADS, daemonThreads());
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    // Authentification
+
+    // Jeton de session, ou null si les identifiants sont incorrects
+    public CompletableFuture<String> login(String email, String password) {
+        return submit(new UUID[0], () -> authService.login(email, password));
+    }
+
+    public CompletableFuture<Boolean> register(String fullName, String email, String address, String password) {
+        return submit(new UUID[0], () -> authService.register(fullName, email, address, password));
+    }
+
+    public CompletableFuture<Void> logout(String sessionToken) {
+        return submit(new UUID[0], () -> {
+            authService.logout(sessionToken);
+            return null;
+        });
+    }
+
+    // Comptes
+
+    // Création et suppression modifient la liste de comptes de l'utilisateur : permis de l'utilisateur aussi
+    public CompletableFuture<Boolean> createAccount(UUID userId, String accountType) {
+        return submit(new UUID[] {userId}, () -> accountService.createAccount(userId, accountType));
+    }
+
+    public CompletableFuture<Boolean> deleteAccount(UUID userId, UUID accountId) {
+        return submit(new UUID[] {userId, accountId}, () -> accountService.deleteAccount(userId, accountId));
+    }
+
+    // Transactions
+
+    public CompletableFuture<TransactionResult> deposer(UUID userId, UUID accountId, Money montant) {
+        return submit(new UUID[] {accountId}, () -> transactionService.deposer(userId, accountId, montant));
+    }
+
+    public CompletableFuture<TransactionResult> withdraw(UUID userId, UUID accountId, Money montant) {
+        return submit(new UUID[] {accountId}, () -> transactionService.withdraw(userId, accountId, montant));
+    }
+
+    public CompletableFuture<TransactionResult> transfer(UUID userId, UUID accountId, UUID accountIdToTransfer, Money montant) {
+        return submit(new UUID[] {accountId, accountIdToTransfer},
+                () -> transactionService.transfer(userId, accountId, accountIdToTransfer, montant));
+    }
+
+    /**
+     * Refuse les nouvelles requêtes et attend la fin de celles en cours (au plus le délai configuré)
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(UUID[] accountIds, Callable<T> task) {
+        Request<T> request = new Request<>(stripesOf(accountIds), task);
+        request.future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        // Annulation ou délai avant le début : quitter la file d'attente de permis
+        request.future.whenComplete((result, error) -> {
+            if (error != null && request.state.compareAndSet(WAITING, ABANDONED)) {
+                CompletableFuture<Void> pending = request.pending;
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+            }
+        });
+        acquire(request, 0);
+        return request.future;
+    }
+
+    // Prend le permis de la bande suivante, puis confie la requête à l'exécuteur une fois tous obtenus
+    private <T> void acquire(Request<T> request, int acquired) {
+        if (acquired == request.stripes.length) {
+            dispatch(request);
+            return;
+        }
+        CompletableFuture<Void> permit = permits[request.stripes[acquired]].acquire();
+        request.pending = permit;
+        permit.whenComplete((granted, error) -> {
+            if (error != null) {
+                // Attente annulée : ce permis n'a pas été accordé
+                release(request.stripes, acquired);
+            } else if (request.state.get() != WAITING) {
+                release(request.stripes, acquired + 1);
+            } else {
+                acquire(request, acquired + 1);
+            }
+        });
+    }
+
+    private <T> void dispatch(Request<T> request) {
+        try {
+            executor.execute(() -> run(request));
+        } catch (RejectedExecutionException e) {
+            release(request.stripes, request.stripes.length);
+            request.future.completeExceptionally(new IllegalStateException("Le service est arrêté."));
+        }
+    }
+
+    private <T> void run(Request<T> request) {
+        try {
+            if (!request.state.compareAndSet(WAITING, RUNNING)) {
+                return;
+            }
+            try {
+                request.future.complete(request.task.call());
+            } catch (Throwable e) {
+                request.future.completeExceptionally(e);
+            }
+        } finally {
+            release(request.stripes, request.stripes.length);
+        }
+    }
+
+    private void release(int[] stripes, int acquired) {
+        for (int i = acquired - 1; i >= 0; i--) {
+            permits[stripes[i]].release();
+        }
+    }
+
+    private static int[] stripesOf(UUID[] accountIds) {
+        // Ordre croissant et sans doublon : pas d'interblocage entre deux virements
+        return Arrays.stream(accountIds)
+                .filter(Objects::nonNull)
+                .mapToInt(accountId -> {
+                    int h = accountId.hashCode();
+                    return (h ^ (h >>> 16)) & (STRIPES - 1);
+                })
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor (Java 21+) par réflexion : le code compile aussi en Java 17
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static final class Request<T> {
+        final int[] stripes;
+        final Callable<T> task;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final AtomicInteger state = new AtomicInteger(WAITING);
+        // Permis en cours d'attente, annulé si la requête est abandonnée
+        volatile CompletableFuture<Void> pending;
+
+        Request(int[] stripes, Callable<T> task) {
+            this.stripes = stripes;
+            this.task = task;
+        }
+    }
+
+    /**
+     * Sémaphore asynchrone : acquire rend une future complétée dès qu'un permis est accordé,
+     * les demandes en attente sont servies dans l'ordre d'arrivée
+     * Le verrou ne couvre que la file et le compteur, jamais l'exécution d'une requête
+     */
+    private static final class Permits {
+        private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private int available;
+
+        Permits(int available) {
+            this.available = available;
+        }
+
+        CompletableFuture<Void> acquire() {
+            lock.lock();
+            try {
+                if (available > 0) {
+                    available--;
+                    return GRANTED;
+                }
+                CompletableFuture<Void> waiter = new CompletableFuture<>();
+                waiters.add(waiter);
+                return waiter;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Le permis passe au premier demandeur encore en attente (les demandes annulées sont sautées)
+        void release() {
+            while (true) {
+                CompletableFuture<Void> next;
+                lock.lock();
+                try {
+                    next = waiters.poll();
+                    if (next == null) {
+                        available++;
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                // Complété hors verrou : la suite de la requête s'exécute dans ce thread
+                if (next.complete(null)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "service-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -2,55 +2,74 @@ package app.services;
 
 import app.models.User;
 import app.repositories.AuthInterface;
+import app.utils.IdClock;
+import app.utils.TimeOrderedIdClock;
+import java.util.UUID;
 
 public class AuthService {
     private AuthInterface authRepository;
+    private IdClock idClock;
+    // L'état de connexion vit dans les sessions, plus dans User : login/logout n'écrivent rien
+    private SessionStore sessionStore;
 
     public AuthService(AuthInterface authRepository) {
+        this(authRepository, TimeOrderedIdClock.getDefault());
+    }
+
+    public AuthService(AuthInterface authRepository, IdClock idClock) {
+        this(authRepository, idClock, new SessionStore());
+    }
+
+    public AuthService(AuthInterface authRepository, IdClock idClock, SessionStore sessionStore) {
         this.authRepository = authRepository;
+        this.idClock = idClock;
+        this.sessionStore = sessionStore;
     }
 
-    public boolean login(String email, String password) {
+    public SessionStore getSessionStore() {
+        return sessionStore;
+    }
+
+    /**
+     * Ouvre une session (les autres sessions de l'utilisateur restent ouvertes)
+     * @return Le jeton de session, ou null si l'email ou le mot de passe est incorrect
+     */
+    public String login(String email, String password) {
         User user = findUserByEmail(email);
         if (user != null && user.getPassword().equals(password)) {
-            user.setLoggedIn(true);
-            authRepository.save(user);
-            return true;
+            return sessionStore.create(user.getId()).getToken();
         }
-        return false;
+        return null;
     }
 
-    public void logout(String userId) {
-        User user = authRepository.findById(userId);
-        if (user != null) {
-            user.setLoggedIn(false);
-            authRepository.save(user);
-        }
+    // Ferme la session du jeton
+    public void logout(String sessionToken) {
+        sessionStore.invalidate(sessionToken);
+    }
+
+    // Utilisateur de la session (qui est prolongée), null si elle est inconnue ou expirée
+    public User getUserBySession(String sessionToken) {
+        Session session = sessionStore.validate(sessionToken);
+        return session == null ? null : authRepository.findById(session.getUserId().toString());
     }
 
     public boolean isUserLoggedIn(String userId) {
-        User user = authRepository.findById(userId);
-        return user != null && user.isLoggedIn();
+        return sessionStore.hasSession(UUID.fromString(userId));
     }
 
     private User findUserByEmail(String email) {
-        for (User user : authRepository.findAll()) {
-            if (user.getEmail().equals(email)) {
-                return user;
-            }
-        }
-        return null;
+        return authRepository.findByEmail(email);
     }
 
     // Méthode pour créer un nouvel utilisateur (inscription)
     public boolean register(String fullName, String email, String address, String password) {
         // Vérifier si l'email existe déjà
-        if (findUserByEmail(email) != null) {
+        if (authRepository.existsByEmail(email)) {
             return false; // Email déjà utilisé
         }
 
         User newUser = new User(
-            java.util.UUID.randomUUID(),
+            idClock.nextId(),
             fullName,
             email,
             address,
@@ -59,19 +78,47 @@ public class AuthService {
         );
 
         // Sauvegarder dans le repository
-        authRepository.save(newUser);
+        try {
+            authRepository.save(newUser);
+        } catch (IllegalStateException e) {
+            return false; // Email pris entre la vérification et l'enregistrement
+        }
         return true;
     }
 
     // Méthode pour mettre à jour un utilisateur
-    public void updateUser(User user) {
-        authRepository.save(user);
+    // @return false si son email est désormais utilisé par un autre utilisateur
+    public boolean updateUser(User user) {
+        try {
+            authRepository.save(user);
+        } catch (IllegalStateException e) {
+            return false;
+        }
+        return true;
+    }
+
+    // Changer l'email d'un utilisateur en gardant l'index email cohérent
+    public boolean changeEmail(User user, String newEmail) {
+        User owner = authRepository.findByEmail(newEmail);
+        if (owner != null && !owner.getId().equals(user.getId())) {
+            return false; // Email déjà utilisé
+        }
+        String previousEmail = user.getEmail();
+        user.setEmail(newEmail.trim());
+        try {
+            authRepository.save(user);
+        } catch (IllegalStateException e) {
+            // Email réclamé entre-temps : le repository a refusé, l'instance reprend son email indexé
+            user.setEmail(previousEmail);
+            return false;
+        }
+        return true;
     }
 
     // Méthode pour obtenir l'utilisateur connecté par email
     public User getLoggedInUserByEmail(String email) {
         User user = findUserByEmail(email);
-        if (user != null && user.isLoggedIn()) {
+        if (user != null && sessionStore.hasSession(user.getId())) {
             return user;
         }
         return null;
@@ -0,0 +1,79 @@
+package app.services;
+
+import app.models.Account;
+import app.models.Money;
+import app.models.TransactionType;
+import app.repositories.AccountInterface;
+import app.repositories.ColumnarTransactionRepository;
+import app.repositories.TransactionInterface;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reconstruction des soldes depuis l'historique : un seul parcours linéaire,
+ * solde = somme des montants signés du compte (un compte est créé à zéro)
+ * Les transactions UNKNOWN (antérieures aux types) sont ignorées et comptées
+ */
+public final class BalanceRebuilder {
+
+    private final Map<UUID, long[]> balances = new HashMap<>();
+    private long unknownCount;
+
+    private BalanceRebuilder() {
+    }
+
+    public static BalanceRebuilder rebuild(TransactionInterface transactions) {
+        BalanceRebuilder rebuilder = new BalanceRebuilder();
+        transactions.forEach(transaction -> rebuilder.add(transaction.getAccountId(), transaction.getType(),
+                transaction.getMontant().getMinorUnits()));
+        return rebuilder;
+    }
+
+    // Parcours des colonnes sans matérialiser de Transaction
+    public static BalanceRebuilder rebuild(ColumnarTransactionRepository transactions) {
+        BalanceRebuilder rebuilder = new BalanceRebuilder();
+        transactions.forEachRow(row -> rebuilder.add(row.getAccountId(), row.getType(), row.getAmountMinor()));
+        return rebuilder;
+    }
+
+    private void add(UUID accountId, TransactionType type, long signedMinor) {
+        if (type == TransactionType.UNKNOWN) {
+            unknownCount++;
+            return;
+        }
+        long[] balance = balances.computeIfAbsent(accountId, id -> new long[1]);
+        balance[0] = Math.addExact(balance[0], signedMinor);
+    }
+
+    public Money balanceOf(UUID accountId) {
+        long[] balance = balances.get(accountId);
+        return Money.ofMinor(balance == null ? 0 : balance[0]);
+    }
+
+    public Map<UUID, Money> getBalances() {
+        Map<UUID, Money> result = new HashMap<>(balances.size() * 2);
+        balances.forEach((accountId, balance) -> result.put(accountId, Money.ofMinor(balance[0])));
+        return result;
+    }
+
+    // Transactions sans type rencontrées : si > 0, les soldes reconstruits sont incomplets
+    public long getUnknownCount() {
+        return unknownCount;
+    }
+
+    /**
+     * @return Les comptes dont le solde enregistré diffère du solde reconstruit
+     */
+    public List<Account> findMismatches(AccountInterface accounts) {
+        List<Account> mismatches = new ArrayList<>();
+        for (Account account : accounts.findAll()) {
+            if (!account.getSolde().equals(balanceOf(account.getId()))) {
+                mismatches.add(account);
+            }
+        }
+        return mismatches;
+    }
+}
@@ -0,0 +1,69 @@
+package app.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Résultats d'un lot de virements, dans l'ordre de soumission
+ */
+public final class BatchTransferResult {
+
+    private final List<TransferResult> results;
+    private final boolean allOrNothing;
+    private final int appliedCount;
+
+    BatchTransferResult(List<TransferResult> results, boolean allOrNothing) {
+        this.results = List.copyOf(results);
+        this.allOrNothing = allOrNothing;
+        int applied = 0;
+        for (TransferResult result : results) {
+            if (result.isApplied()) {
+                applied++;
+            }
+        }
+        this.appliedCount = applied;
+    }
+
+    // Lot tout-ou-rien refusé : l'élément fautif est FAILED, tous les autres ABORTED
+    static BatchTransferResult aborted(List<TransferRequest> requests, int failedIndex, RuntimeException error) {
+        List<TransferResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            results.add(i == failedIndex
+                    ? TransferResult.failed(i, requests.get(i), error)
+                    : TransferResult.aborted(i, requests.get(i)));
+        }
+        return new BatchTransferResult(results, true);
+    }
+
+    public List<TransferResult> getResults() {
+        return results;
+    }
+
+    public boolean isAllOrNothing() {
+        return allOrNothing;
+    }
+
+    public int getAppliedCount() {
+        return appliedCount;
+    }
+
+    public int getFailedCount() {
+        int failed = 0;
+        for (TransferResult result : results) {
+            if (result.getStatus() == TransferResult.Status.FAILED) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    public boolean isFullyApplied() {
+        return appliedCount == results.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d virements effectués, %d refusés%s",
+                appliedCount, results.size(), getFailedCount(), allOrNothing ? " (tout-ou-rien)" : "");
+    }
+}
@@ -0,0 +1,185 @@
+package app.services;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Virements par lots (paie, remboursements groupés...)
+ *
+ * Mode par défaut : chaque virement réussit ou échoue seul
+ * - le lot est découpé en groupes dont les ensembles de comptes sont disjoints (union-find)
+ * - les groupes s'exécutent en parallèle sur un ForkJoinPool, chacun dans l'ordre de soumission :
+ *   deux virements qui touchent un même compte restent donc ordonnés comme dans le lot
+ * - un lot dont tous les virements partagent un compte (ex. un compte employeur) forme un seul groupe
+ *
+ * Mode tout-ou-rien : délégué au registre (LedgerInterface.transferAll) ; refusé avant toute
+ * écriture si le registre ne le gère pas (LedgerEngine en mode LOCK_FREE)
+ */
+public class BatchTransferService {
+
+    // Nombre de virements en dessous duquel une tâche ne se subdivise plus
+    private static final int TASK_THRESHOLD = 256;
+
+    private final LedgerInterface ledger;
+    private final ForkJoinPool pool;
+
+    public BatchTransferService(LedgerInterface ledger) {
+        this(ledger, ForkJoinPool.commonPool());
+    }
+
+    public BatchTransferService(LedgerInterface ledger, ForkJoinPool pool) {
+        this.ledger = ledger;
+        this.pool = pool;
+    }
+
+    /**
+     * @param allOrNothing true : aucun virement n'est effectué si l'un d'eux est refusé
+     * @return Un résultat par virement, dans l'ordre du lot
+     */
+    public BatchTransferResult transfer(List<TransferRequest> requests, boolean allOrNothing) {
+        if (allOrNothing) {
+            if (!ledger.supportsAllOrNothing()) {
+                throw new IllegalStateException("Ce registre ne gère pas les lots tout-ou-rien.");
+            }
+            return ledger.transferAll(requests);
+        }
+        TransferResult[] results = new TransferResult[requests.size()];
+        int[][] groups = partition(requests, results);
+        if (groups.length > 0) {
+            long[] offsets = new long[groups.length + 1];
+            for (int g = 0; g < groups.length; g++) {
+                offsets[g + 1] = offsets[g] + groups[g].length;
+            }
+            pool.invoke(new GroupTask(requests, groups, offsets, 0, groups.length, results));
+        }
+        return new BatchTransferResult(Arrays.asList(results), false);
+    }
+
+    /**
+     * Union-find sur les comptes : deux virements qui partagent un compte sont dans le même groupe
+     * Les requêtes invalides sont refusées ici (results) et n'appartiennent à aucun groupe
+     * @return Indices des virements de chaque groupe, dans l'ordre de soumission
+     */
+    private static int[][] partition(List<TransferRequest> requests, TransferResult[] results) {
+        Map<UUID, Integer> accountIndex = new HashMap<>();
+        int[] parent = new int[requests.size() * 2];
+        int[] from = new int[requests.size()];
+        int[] to = new int[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            IllegalArgumentException invalid = request.validate();
+            if (invalid != null) {
+                results[i] = TransferResult.failed(i, request, invalid);
+                continue;
+            }
+            from[i] = indexOf(request.getFromAccountId(), accountIndex, parent);
+            to[i] = indexOf(request.getToAccountId(), accountIndex, parent);
+            union(parent, from[i], to[i]);
+        }
+
+        // Numérotation des groupes dans l'ordre d'apparition, puis remplissage
+        int[] groupOfRoot = new int[accountIndex.size()];
+        Arrays.fill(groupOfRoot, -1);
+        int[] groupOfItem = new int[requests.size()];
+        int[] sizes = new int[accountIndex.size()];
+        int groupCount = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                groupOfItem[i] = -1;
+                continue;
+            }
+            int root = find(parent, from[i]);
+            if (groupOfRoot[root] < 0) {
+                groupOfRoot[root] = groupCount++;
+            }
+            groupOfItem[i] = groupOfRoot[root];
+            sizes[groupOfItem[i]]++;
+        }
+        int[][] groups = new int[groupCount][];
+        for (int g = 0; g < groupCount; g++) {
+            groups[g] = new int[sizes[g]];
+        }
+        int[] filled = new int[groupCount];
+        for (int i = 0; i < requests.size(); i++) {
+            int g = groupOfItem[i];
+            if (g >= 0) {
+                groups[g][filled[g]++] = i;
+            }
+        }
+        return groups;
+    }
+
+    private static int indexOf(UUID accountId, Map<UUID, Integer> accountIndex, int[] parent) {
+        Integer index = accountIndex.get(accountId);
+        if (index == null) {
+            index = accountIndex.size();
+            accountIndex.put(accountId, index);
+            parent[index] = index;
+        }
+        return index;
+    }
+
+    // Compression de chemin par division
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    // Tâche sur une plage de groupes : subdivisée tant qu'elle contient plus de TASK_THRESHOLD virements
+    private final class GroupTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<TransferRequest> requests;
+        private final int[][] groups;
+        private final long[] offsets;
+        private final int lo;
+        private final int hi;
+        private final TransferResult[] results;
+
+        GroupTask(List<TransferRequest> requests, int[][] groups, long[] offsets, int lo, int hi, TransferResult[] results) {
+            this.requests = requests;
+            this.groups = groups;
+            this.offsets = offsets;
+            this.lo = lo;
+            this.hi = hi;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1 && offsets[hi] - offsets[lo] > TASK_THRESHOLD) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new GroupTask(requests, groups, offsets, lo, mid, results),
+                        new GroupTask(requests, groups, offsets, mid, hi, results));
+                return;
+            }
+            for (int g = lo; g < hi; g++) {
+                for (int i : groups[g]) {
+                    TransferRequest request = requests.get(i);
+                    try {
+                        results[i] = TransferResult.applied(i, request,
+                                ledger.transfer(request.getFromAccountId(), request.getToAccountId(), request.getMontant()));
+                    } catch (RuntimeException e) {
+                        results[i] = TransferResult.failed(i, request, e);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package app.services;
+
+import app.models.Account;
+import app.models.Money;
+import app.models.Transaction;
+import app.models.TransactionType;
+import app.repositories.AccountInterface;
+import app.repositories.DeferredDurability;
+import app.repositories.TransactionInterface;
+import app.utils.IdClock;
+import app.utils.TimeOrderedIdClock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moteur d'écriture des soldes : dépôts, retraits et virements atomiques
+ *
+ * Chaque compte est associé à un verrou parmi un tableau fixe (verrous « striés ») :
+ * - vérification du solde, mise à jour, sauvegarde du compte et écriture de la transaction
+ *   se font sous le verrou du compte, donc sans mise à jour perdue ni découvert
+ * - avec des repositories journalisés, l'attente du fsync (group commit) se fait après avoir
+ *   relâché le verrou (DeferredDurability) : les autres comptes de la bande ne l'attendent pas.
+ *   Une opération n'est acquittée qu'une fois durable ; si le fsync échoue, elle reste appliquée
+ *   en mémoire et l'erreur est remontée à l'appelant
+ * - si une sauvegarde échoue sous le verrou, les soldes reprennent leur valeur précédente
+ * - un virement prend ses deux verrous dans l'ordre croissant des indices : pas d'interblocage
+ * - deux opérations sur des comptes de bandes différentes ne se bloquent jamais,
+ *   le débit croît avec le nombre de comptes distincts touchés
+ *
+ * En mode LOCK_FREE les soldes sont modifiés par CAS sur le compteur atomique du compte
+ * (Account.credit / Account.tryDebit), sans aucun verrou :
+ * - un dépôt ou un retrait sans concurrence sur le compte se fait en un seul CAS
+ * - un virement débite la source puis crédite la destination : la somme n'est pas conservée
+ *   entre les deux, et la source est recréditée si la destination refuse le crédit
+ * - le compte n'est pas re-sauvegardé : le solde vit dans l'objet partagé par le repository,
+ *   ce mode est donc réservé aux repositories en mémoire (pas au DurableStore) ;
+ *   seuls les index de solde du repository sont prévenus (onBalanceChanged)
+ *
+ * La suppression d'un compte passe aussi par le moteur (deleteAccount) : vérification du solde nul
+ * et suppression se font sous le verrou du compte, aucun dépôt concurrent ne peut ré-insérer le compte.
+ *
+ * Les erreurs sont signalées par exception (IllegalArgumentException pour une requête invalide,
+ * IllegalStateException pour un compte inactif ou un solde insuffisant)
+ */
+public class LedgerEngine implements LedgerInterface {
+
+    public static final int DEFAULT_STRIPES = 1024;
+
+    public enum Mode {
+        // Verrou strié par compte, compatible avec les repositories journalisés
+        LOCKING,
+        // Compteurs atomiques et boucles CAS, sans verrou
+        LOCK_FREE
+    }
+
+    private final AccountInterface accountRepository;
+    private final TransactionInterface transactionRepository;
+    private final IdClock idClock;
+    private final Mode mode;
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public LedgerEngine(AccountInterface accountRepository, TransactionInterface transactionRepository) {
+        this(accountRepository, transactionRepository, TimeOrderedIdClock.getDefault(), DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param transactionRepository Historique des opérations, ou null pour ne tenir que les soldes
+     * @param stripes Nombre de verrous, arrondi à la puissance de 2 supérieure
+     */
+    public LedgerEngine(AccountInterface accountRepository, TransactionInterface transactionRepository,
+            IdClock idClock, int stripes) {
+        this(accountRepository, transactionRepository, idClock, stripes, Mode.LOCKING);
+    }
+
+    public LedgerEngine(AccountInterface accountRepository, TransactionInterface transactionRepository,
+            IdClock idClock, int stripes, Mode mode) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Le nombre de verrous doit être positif!");
+        }
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.idClock = idClock;
+        this.mode = mode;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public Transaction deposit(UUID accountId, Money montant) {
+        requirePositive(montant);
+        if (mode == Mode.LOCK_FREE) {
+            Account account = loadActive(accountId);
+            account.credit(montant);
+            if (revokedByDelete(account, montant)) {
+                throw new IllegalArgumentException("Compte introuvable: " + accountId);
+            }
+            accountRepository.onBalanceChanged(account);
+            return record(accountId, TransactionType.DEPOSIT, montant);
+        }
+        ReentrantLock lock = lockFor(accountId);
+        try (DeferredDurability durability = DeferredDurability.open()) {
+            Transaction transaction;
+            lock.lock();
+            try {
+                Account account = loadActive(accountId);
+                Money before = account.getSolde();
+                account.setSolde(before.add(montant));
+                transaction = saveMovement(account, before, TransactionType.DEPOSIT, montant);
+            } finally {
+                lock.unlock();
+            }
+            // Fsync attendu hors verrou : les autres comptes de la bande n'attendent pas ce group commit
+            durability.await();
+            return transaction;
+        }
+    }
+
+    @Override
+    public Transaction withdraw(UUID accountId, Money montant) {
+        requirePositive(montant);
+        if (mode == Mode.LOCK_FREE) {
+            Account account = loadActive(accountId);
+            if (!account.tryDebit(montant)) {
+                throw new IllegalStateException("Solde insuffisant!");
+            }
+            accountRepository.onBalanceChanged(account);
+            return record(accountId, TransactionType.WITHDRAWAL, montant);
+        }
+        ReentrantLock lock = lockFor(accountId);
+        try (DeferredDurability durability = DeferredDurability.open()) {
+            Transaction transaction;
+            lock.lock();
+            try {
+                Account account = loadActive(accountId);
+                requireFunds(account, montant);
+                Money before = account.getSolde();
+                account.setSolde(before.subtract(montant));
+                transaction = saveMovement(account, before, TransactionType.WITHDRAWAL, montant);
+            } finally {
+                lock.unlock();
+            }
+            durability.await();
+            return transaction;
+        }
+    }
+
+    /**
+     * @return Les deux jambes du virement : débit de la source puis crédit de la destination
+     */
+    @Override
+    public List<Transaction> transfer(UUID fromAccountId, UUID toAccountId, Money montant) {
+        requirePositive(montant);
+        if (fromAccountId.equals(toAccountId)) {
+            throw new IllegalArgumentException("Impossible de virer vers le même compte.");
+        }
+        if (mode == Mode.LOCK_FREE) {
+            return transferLockFree(fromAccountId, toAccountId, montant);
+        }
+        int fromStripe = stripeOf(fromAccountId);
+        int toStripe = stripeOf(toAccountId);
+        // Ordre global des verrous : le plus petit indice d'abord
+        ReentrantLock first = locks[Math.min(fromStripe, toStripe)];
+        ReentrantLock second = locks[Math.max(fromStripe, toStripe)];
+        try (DeferredDurability durability = DeferredDurability.open()) {
+            List<Transaction> legs;
+            first.lock();
+            try {
+                if (second != first) {
+                    second.lock();
+                }
+                try {
+                    Account source = loadActive(fromAccountId);
+                    Account destination = loadActive(toAccountId);
+                    requireFunds(source, montant);
+                    List<Account> accounts = List.of(source, destination);
+                    List<Money> before = List.of(source.getSolde(), destination.getSolde());
+                    source.setSolde(source.getSolde().subtract(montant));
+                    destination.setSolde(destination.getSolde().add(montant));
+                    legs = transactionRepository == null ? List.of() : transferLegs(fromAccountId, toAccountId, montant);
+                    saveAll(accounts, before, legs);
+                } finally {
+                    if (second != first) {
+                        second.unlock();
+                    }
+                }
+            } finally {
+                first.unlock();
+            }
+            durability.await();
+            return legs;
+        }
+    }
+
+    /**
+     * Lot tout-ou-rien (mode LOCKING uniquement) :
+     * les verrous de tous les comptes du lot sont pris dans l'ordre croissant, le lot est simulé
+     * sur une copie des soldes, puis appliqué en entier (un saveAll comptes, un saveAll transactions)
+     * Au premier élément refusé, rien n'est écrit
+     */
+    @Override
+    public BatchTransferResult transferAll(List<TransferRequest> requests) {
+        if (mode == Mode.LOCK_FREE) {
+            throw new IllegalStateException("Lot tout-ou-rien indisponible en mode LOCK_FREE.");
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            IllegalArgumentException invalid = requests.get(i).validate();
+            if (invalid != null) {
+                return BatchTransferResult.aborted(requests, i, invalid);
+            }
+        }
+        int[] stripes = new int[requests.size() * 2];
+        for (int i = 0; i < requests.size(); i++) {
+            stripes[2 * i] = stripeOf(requests.get(i).getFromAccountId());
+            stripes[2 * i + 1] = stripeOf(requests.get(i).getToAccountId());
+        }
+        stripes = Arrays.stream(stripes).sorted().distinct().toArray();
+        try (DeferredDurability durability = DeferredDurability.open()) {
+            BatchTransferResult result;
+            int locked = 0;
+            try {
+                for (int stripe : stripes) {
+                    locks[stripe].lock();
+                    locked++;
+                }
+                result = transferAllLocked(requests);
+            } finally {
+                for (int i = locked - 1; i >= 0; i--) {
+                    locks[stripes[i]].unlock();
+                }
+            }
+            durability.await();
+            return result;
+        }
+    }
+
+    // Les CAS par compte ne permettent pas d'annuler un lot déjà en partie appliqué
+    @Override
+    public boolean supportsAllOrNothing() {
+        return mode == Mode.LOCKING;
+    }
+
+    private BatchTransferResult transferAllLocked(List<TransferRequest> requests) {
+        Map<UUID, Account> accounts = new LinkedHashMap<>();
+        Map<UUID, Long> balances = new HashMap<>();
+        // Simulation sur une copie des soldes
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            try {
+                UUID from = request.getFromAccountId();
+                UUID to = request.getToAccountId();
+                long amount = request.getMontant().getMinorUnits();
+                long available = simulatedBalance(from, accounts, balances);
+                if (available < amount) {
+                    throw new IllegalStateException("Solde insuffisant!");
+                }
+                long credited = Math.addExact(simulatedBalance(to, accounts, balances), amount);
+                balances.put(from, available - amount);
+                balances.put(to, credited);
+            } catch (RuntimeException e) {
+                return BatchTransferResult.aborted(requests, i, e);
+            }
+        }
+        // Application
+        List<Account> touched = new ArrayList<>(accounts.values());
+        List<Money> before = new ArrayList<>(touched.size());
+        for (Account account : touched) {
+            before.add(account.getSolde());
+            account.setSolde(Money.ofMinor(balances.get(account.getId())));
+        }
+        List<TransferResult> results = new ArrayList<>(requests.size());
+        List<Transaction> transactions = new ArrayList<>(requests.size() * 2);
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            List<Transaction> legs = transactionRepository == null
+                    ? List.of()
+                    : transferLegs(request.getFromAccountId(), request.getToAccountId(), request.getMontant());
+            transactions.addAll(legs);
+            results.add(TransferResult.applied(i, request, legs));
+        }
+        saveAll(touched, before, transactions);
+        return new BatchTransferResult(results, true);
+    }
+
+    private long simulatedBalance(UUID accountId, Map<UUID, Account> accounts, Map<UUID, Long> balances) {
+        Long balance = balances.get(accountId);
+        if (balance != null) {
+            return balance;
+        }
+        Account account = loadActive(accountId);
+        accounts.put(accountId, account);
+        long initial = account.getSolde().getMinorUnits();
+        balances.put(accountId, initial);
+        return initial;
+    }
+
+    private List<Transaction> transferLockFree(UUID fromAccountId, UUID toAccountId, Money montant) {
+        Account source = loadActive(fromAccountId);
+        Account destination = loadActive(toAccountId);
+        if (!source.tryDebit(montant)) {
+            throw new IllegalStateException("Solde insuffisant!");
+        }
+        try {
+            destination.credit(montant);
+        } catch (ArithmeticException e) {
+            source.credit(montant);
+            throw e;
+        }
+        if (revokedByDelete(destination, montant)) {
+            source.credit(montant);
+            throw new IllegalArgumentException("Compte introuvable: " + toAccountId);
+        }
+        accountRepository.onBalanceChanged(source);
+        accountRepository.onBalanceChanged(destination);
+        if (transactionRepository == null) {
+            return List.of();
+        }
+        List<Transaction> legs = transferLegs(fromAccountId, toAccountId, montant);
+        transactionRepository.saveAll(legs);
+        return legs;
+    }
+
+    /**
+     * Lecture du solde sous le verrou du compte (jamais une valeur intermédiaire)
+     * En mode LOCK_FREE, simple lecture du compteur atomique
+     */
+    @Override
+    public Money balanceOf(UUID accountId) {
+        if (mode == Mode.LOCK_FREE) {
+            Account account = accountRepository.findById(accountId);
+            if (account == null) {
+                throw new IllegalArgumentException("Compte introuvable: " + accountId);
+            }
+            return account.getSolde();
+        }
+        ReentrantLock lock = lockFor(accountId);
+        lock.lock();
+        try {
+            Account account = accountRepository.findById(accountId);
+            if (account == null) {
+                throw new IllegalArgumentException("Compte introuvable: " + accountId);
+            }
+            return account.getSolde();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Suppression d'un compte à solde nul, sérialisée avec les opérations sur ce compte :
+     * sous son verrou, aucun crédit ne peut passer entre la vérification du solde et la suppression
+     * (et un crédit ultérieur ne trouve plus le compte, il ne le ré-insère donc pas)
+     * En mode LOCK_FREE, le solde est revérifié après la suppression : un crédit passé entre-temps
+     * remet le compte en place, et un crédit arrivé après est repris par son auteur (revokedByDelete)
+     * @return false si le compte est introuvable
+     */
+    @Override
+    public boolean deleteAccount(UUID accountId) {
+        if (mode == Mode.LOCK_FREE) {
+            Account account = accountRepository.findById(accountId);
+            if (account == null) {
+                return false;
+            }
+            requireEmpty(account);
+            accountRepository.delete(account);
+            if (account.getSolde().isPositive()) {
+                accountRepository.save(account);
+                requireEmpty(account);
+            }
+            return true;
+        }
+        ReentrantLock lock = lockFor(accountId);
+        try (DeferredDurability durability = DeferredDurability.open()) {
+            lock.lock();
+            try {
+                Account account = accountRepository.findById(accountId);
+                if (account == null) {
+                    return false;
+                }
+                requireEmpty(account);
+                accountRepository.delete(account);
+            } finally {
+                lock.unlock();
+            }
+            durability.await();
+            return true;
+        }
+    }
+
+    /**
+     * Mode LOCK_FREE : crédit appliqué à un compte supprimé entre-temps (il n'est plus dans le repository)
+     * Le crédit est repris et l'opération doit échouer ; s'il a déjà été dépensé par un retrait concurrent
+     * sur ce même objet, il est conservé : l'argent est entré puis sorti, les deux opérations sont valides
+     */
+    private boolean revokedByDelete(Account account, Money montant) {
+        return accountRepository.findById(account.getId()) == null && account.tryDebit(montant);
+    }
+
+    private ReentrantLock lockFor(UUID accountId) {
+        return locks[stripeOf(accountId)];
+    }
+
+    private int stripeOf(UUID accountId) {
+        int h = accountId.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private Account loadActive(UUID accountId) {
+        Account account = accountRepository.findById(accountId);
+        if (account == null) {
+            throw new IllegalArgumentException("Compte introuvable: " + accountId);
+        }
+        if (!"active".equals(account.getStatus())) {
+            throw new IllegalStateException("Le compte n'est pas actif.");
+        }
+        return account;
+    }
+
+    private Transaction record(UUID accountId, TransactionType type, Money montant) {
+        if (transactionRepository == null) {
+            return null;
+        }
+        UUID id = idClock.nextId();
+        Transaction transaction = new Transaction(id, accountId, idClock.dateOf(id), type, type.signed(montant), null);
+        transactionRepository.save(transaction);
+        return transaction;
+    }
+
+    // Sauvegarde d'un dépôt ou d'un retrait déjà appliqué au compte (verrou tenu)
+    private Transaction saveMovement(Account account, Money before, TransactionType type, Money montant) {
+        boolean saved = false;
+        try {
+            accountRepository.save(account);
+            saved = true;
+            return record(account.getId(), type, montant);
+        } catch (RuntimeException e) {
+            restore(List.of(account), List.of(before), saved, e);
+            throw e;
+        }
+    }
+
+    // Sauvegarde de comptes déjà modifiés et des transactions correspondantes (verrous tenus)
+    private void saveAll(List<Account> accounts, List<Money> before, List<Transaction> transactions) {
+        boolean saved = false;
+        try {
+            accountRepository.saveAll(accounts);
+            saved = true;
+            if (!transactions.isEmpty()) {
+                transactionRepository.saveAll(transactions);
+            }
+        } catch (RuntimeException e) {
+            restore(accounts, before, saved, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Échec d'une écriture : les soldes modifiés en place reprennent leur valeur, et sont réécrits
+     * si les comptes avaient déjà été sauvegardés (journal et index de solde)
+     */
+    private void restore(List<Account> accounts, List<Money> before, boolean saved, RuntimeException failure) {
+        for (int i = 0; i < accounts.size(); i++) {
+            accounts.get(i).setSolde(before.get(i));
+        }
+        if (saved) {
+            try {
+                accountRepository.saveAll(accounts);
+            } catch (RuntimeException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    // Jambe débit puis jambe crédit, reliées par l'id de la jambe débit
+    private List<Transaction> transferLegs(UUID fromAccountId, UUID toAccountId, Money montant) {
+        UUID outId = idClock.nextId();
+        UUID inId = idClock.nextId();
+        return List.of(
+                new Transaction(outId, fromAccountId, idClock.dateOf(outId), TransactionType.TRANSFER_OUT, montant.negate(), outId),
+                new Transaction(inId, toAccountId, idClock.dateOf(inId), TransactionType.TRANSFER_IN, montant, outId));
+    }
+
+    private static void requirePositive(Money montant) {
+        if (montant == null || !montant.isPositive()) {
+            throw new IllegalArgumentException("Le montant doit être positif!");
+        }
+    }
+
+    private static void requireEmpty(Account account) {
+        if (account.getSolde().isPositive()) {
+            throw new IllegalStateException("Impossible de supprimer un compte avec un solde positif!");
+        }
+    }
+
+    private static void requireFunds(Account account, Money montant) {
+        if (account.getSolde().compareTo(montant) < 0) {
+            throw new IllegalStateException("Solde insuffisant!");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package app.services;
+
+import app.models.Money;
+import app.models.Transaction;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Point d'entrée unique des modifications de soldes (dépôts, retraits, virements)
+ * Les variantes synchrones lèvent IllegalArgumentException / IllegalStateException,
+ * les variantes asynchrones complètent leur future avec ces mêmes exceptions
+ */
+public interface LedgerInterface {
+    Transaction deposit(UUID accountId, Money montant);
+    Transaction withdraw(UUID accountId, Money montant);
+    List<Transaction> transfer(UUID fromAccountId, UUID toAccountId, Money montant);
+    Money balanceOf(UUID accountId);
+
+    // Supprime un compte à solde nul, sans qu'un crédit concurrent ne puisse passer entre la vérification
+    // et la suppression ; false si le compte est introuvable, IllegalStateException si son solde est positif
+    boolean deleteAccount(UUID accountId);
+
+    // Lot tout-ou-rien : soit tous les virements sont effectués, soit aucun
+    // Disponible seulement si supportsAllOrNothing() ; sinon IllegalStateException
+    default BatchTransferResult transferAll(List<TransferRequest> requests) {
+        throw new IllegalStateException("Ce registre ne gère pas les lots tout-ou-rien.");
+    }
+
+    default boolean supportsAllOrNothing() {
+        return false;
+    }
+
+    // Par défaut l'opération est exécutée dans le thread appelant
+    default CompletableFuture<Transaction> depositAsync(UUID accountId, Money montant) {
+        try {
+            return CompletableFuture.completedFuture(deposit(accountId, montant));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    default CompletableFuture<Transaction> withdrawAsync(UUID accountId, Money montant) {
+        try {
+            return CompletableFuture.completedFuture(withdraw(accountId, montant));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    default CompletableFuture<List<Transaction>> transferAsync(UUID fromAccountId, UUID toAccountId, Money montant) {
+        try {
+            return CompletableFuture.completedFuture(transfer(fromAccountId, toAccountId, montant));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,641 @@
+package app.services;
+
+import app.models.Account;
+import app.models.Money;
+import app.models.Transaction;
+import app.models.TransactionType;
+import app.repositories.AccountInterface;
+import app.repositories.TransactionInterface;
+import app.utils.IdClock;
+import app.utils.TimeOrderedIdClock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registre à écrivain unique : les opérations sont des commandes déposées dans un anneau pré-alloué
+ *
+ * - les appelants réservent un numéro de séquence (un seul getAndIncrement), remplissent
+ *   l'emplacement correspondant et reçoivent une CompletableFuture
+ * - le thread « ledger-writer » applique les commandes dans l'ordre des séquences ; il est le seul
+ *   à calculer les soldes, aucun verrou n'est pris sur ce chemin. Il tient ses propres soldes
+ *   (une entrée par compte modifié) et note dans l'emplacement le solde de chaque compte
+ *   touché après la commande ; les objets Account du repository ne sont jamais modifiés en place
+ * - le thread « ledger-journal » le suit dans l'anneau : il sauvegarde par lots les transactions
+ *   puis une copie de chaque compte modifié portant le solde noté par l'écrivain (saveAll), et
+ *   complète les futures du lot. Le repository ne contient donc que des soldes journalisés,
+ *   chacun accompagné des transactions qui y mènent
+ * - un lot tout-ou-rien (transferAll) est une seule commande : l'écrivain le simule sur une copie
+ *   des soldes puis l'applique en entier, ou le refuse sans rien modifier
+ * - une suppression de compte (deleteAccount) est aussi une commande : l'écrivain vérifie le solde
+ *   nul et marque le compte supprimé, les commandes suivantes ne le trouvent plus ; le journaliseur
+ *   le retire du repository après avoir sauvegardé les comptes du lot (jamais ré-inséré)
+ * - un emplacement n'est réutilisé qu'une fois sa commande notifiée : un producteur attend
+ *   si l'anneau est plein
+ * - inactifs, l'écrivain et le journaliseur attendent brièvement de façon active puis se bloquent
+ *   (park) ; le producteur suivant, ou l'écrivain pour le journaliseur, les réveille (unpark)
+ *
+ * Ce mode est exclusif : tant que le pipeline tourne, aucun autre chemin (LedgerEngine,
+ * setSolde direct) ne doit modifier les soldes. balanceOf lit le dernier solde journalisé.
+ * Échec d'une sauvegarde : les futures du lot échouent et le pipeline s'arrête en échec ;
+ * toutes les commandes suivantes sont refusées (IllegalStateException). Les soldes du repository
+ * restent ceux du dernier lot journalisé : les soldes d'avance de l'écrivain sont abandonnés.
+ * Si seule la sauvegarde des comptes a échoué, les transactions du lot sont journalisées sans
+ * leurs soldes ; BalanceRebuilder recalcule les soldes à partir de l'historique.
+ * Les futures sont complétées par le thread de journalisation : les traitements lourds
+ * doivent être chaînés avec les variantes *Async de CompletableFuture.
+ */
+public class LedgerPipeline implements LedgerInterface, AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    public static final int DEFAULT_MAX_BATCH = 1024;
+
+    // Itérations d'attente active avant qu'un thread inactif se bloque
+    private static final int SPIN_LIMIT = 200;
+
+    // Bit posé dans la séquence de réservation à la fermeture
+    private static final long CLOSED = 1L << 62;
+
+    private enum Kind {
+        DEPOSIT,
+        WITHDRAW,
+        TRANSFER,
+        TRANSFER_ALL,
+        DELETE
+    }
+
+    // Emplacement de l'anneau, réutilisé à chaque tour
+    private static final class Slot {
+        volatile long published = -1;
+        Kind kind;
+        UUID from;
+        UUID to;
+        Money montant;
+        List<TransferRequest> requests;
+        CompletableFuture<?> future;
+        // Renseignés par l'écrivain : comptes modifiés et leur solde (unités mineures) après la commande
+        UUID[] touched;
+        long[] balances;
+        List<Transaction> legs;
+        Object result;
+        RuntimeException error;
+    }
+
+    private final AccountInterface accountRepository;
+    private final TransactionInterface transactionRepository;
+    private final IdClock idClock;
+    private final Slot[] slots;
+    private final int mask;
+    private final int maxBatch;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long closeSequence = Long.MAX_VALUE;
+    // Nombre de commandes appliquées (écrivain) puis journalisées et notifiées
+    private volatile long applied;
+    private volatile long completed;
+
+    // Écrits par le seul thread de journalisation
+    private volatile long batches;
+    private volatile long maxBatchSize;
+
+    // Soldes calculés par l'écrivain, en avance sur le repository (thread « ledger-writer » seul)
+    private final Map<UUID, Long> balances = new HashMap<>();
+    // Comptes supprimés par une commande DELETE : refusés par l'écrivain même avant la journalisation
+    private final Set<UUID> deleted = new HashSet<>();
+    // Première erreur de sauvegarde : le pipeline est arrêté en échec
+    private volatile RuntimeException failure;
+
+    private final Thread writer;
+    private final Thread journaler;
+    // Consommateur bloqué dans park : le prochain producteur (ou l'écrivain) doit le réveiller
+    private volatile boolean writerParked;
+    private volatile boolean journalerParked;
+
+    public LedgerPipeline(AccountInterface accountRepository, TransactionInterface transactionRepository) {
+        this(accountRepository, transactionRepository, TimeOrderedIdClock.getDefault(), DEFAULT_CAPACITY, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param transactionRepository Historique des opérations, ou null pour ne tenir que les soldes
+     * @param capacity Taille de l'anneau, arrondie à la puissance de 2 supérieure
+     * @param maxBatch Nombre maximal de commandes appliquées par l'écrivain avant publication
+     */
+    public LedgerPipeline(AccountInterface accountRepository, TransactionInterface transactionRepository,
+            IdClock idClock, int capacity, int maxBatch) {
+        if (capacity < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("Capacité et taille de lot doivent être positives!");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.idClock = idClock;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.maxBatch = maxBatch;
+
+        this.writer = new Thread(this::applyLoop, "ledger-writer");
+        this.journaler = new Thread(this::journalLoop, "ledger-journal");
+        writer.setDaemon(true);
+        journaler.setDaemon(true);
+        writer.start();
+        journaler.start();
+    }
+
+    @Override
+    public CompletableFuture<Transaction> depositAsync(UUID accountId, Money montant) {
+        if (montant == null || !montant.isPositive()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Le montant doit être positif!"));
+        }
+        return submit(Kind.DEPOSIT, accountId, null, montant, null);
+    }
+
+    @Override
+    public CompletableFuture<Transaction> withdrawAsync(UUID accountId, Money montant) {
+        if (montant == null || !montant.isPositive()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Le montant doit être positif!"));
+        }
+        return submit(Kind.WITHDRAW, accountId, null, montant, null);
+    }
+
+    @Override
+    public CompletableFuture<List<Transaction>> transferAsync(UUID fromAccountId, UUID toAccountId, Money montant) {
+        if (montant == null || !montant.isPositive()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Le montant doit être positif!"));
+        }
+        if (fromAccountId.equals(toAccountId)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Impossible de virer vers le même compte."));
+        }
+        return submit(Kind.TRANSFER, fromAccountId, toAccountId, montant, null);
+    }
+
+    /**
+     * Lot tout-ou-rien appliqué par l'écrivain en une seule commande : aucune autre commande
+     * ne s'intercale entre la vérification des soldes et l'application
+     */
+    public CompletableFuture<BatchTransferResult> transferAllAsync(List<TransferRequest> requests) {
+        for (int i = 0; i < requests.size(); i++) {
+            IllegalArgumentException invalid = requests.get(i).validate();
+            if (invalid != null) {
+                return CompletableFuture.completedFuture(BatchTransferResult.aborted(requests, i, invalid));
+            }
+        }
+        return submit(Kind.TRANSFER_ALL, null, null, null, List.copyOf(requests));
+    }
+
+    @Override
+    public Transaction deposit(UUID accountId, Money montant) {
+        return await(depositAsync(accountId, montant));
+    }
+
+    @Override
+    public Transaction withdraw(UUID accountId, Money montant) {
+        return await(withdrawAsync(accountId, montant));
+    }
+
+    @Override
+    public List<Transaction> transfer(UUID fromAccountId, UUID toAccountId, Money montant) {
+        return await(transferAsync(fromAccountId, toAccountId, montant));
+    }
+
+    @Override
+    public BatchTransferResult transferAll(List<TransferRequest> requests) {
+        return await(transferAllAsync(requests));
+    }
+
+    @Override
+    public boolean deleteAccount(UUID accountId) {
+        return await(submit(Kind.DELETE, accountId, null, null, null));
+    }
+
+    @Override
+    public boolean supportsAllOrNothing() {
+        return true;
+    }
+
+    @Override
+    public Money balanceOf(UUID accountId) {
+        Account account = accountRepository.findById(accountId);
+        if (account == null) {
+            throw new IllegalArgumentException("Compte introuvable: " + accountId);
+        }
+        return account.getSolde();
+    }
+
+    public PipelineStats getStats() {
+        long done = completed;
+        long submitted = Math.min(claimed.get() & ~CLOSED, closeSequence);
+        return new PipelineStats(Math.max(0, submitted - done), done, batches, maxBatchSize);
+    }
+
+    /**
+     * Refuse les nouvelles commandes, attend que toutes celles déjà reçues soient notifiées
+     */
+    @Override
+    public void close() {
+        long end = claimed.getAndAdd(CLOSED);
+        if ((end & CLOSED) != 0) {
+            return;
+        }
+        closeSequence = end;
+        LockSupport.unpark(writer);
+        LockSupport.unpark(journaler);
+        try {
+            writer.join();
+            journaler.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Kind kind, UUID from, UUID to, Money montant, List<TransferRequest> requests) {
+        long sequence = claimed.getAndIncrement();
+        if ((sequence & CLOSED) != 0) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Le pipeline est arrêté."));
+        }
+        // Anneau plein : attendre que l'emplacement du tour précédent soit notifié
+        long wrapPoint = sequence - slots.length;
+        int idle = 0;
+        while (wrapPoint >= completed) {
+            idle = idle(idle);
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.kind = kind;
+        slot.from = from;
+        slot.to = to;
+        slot.montant = montant;
+        slot.requests = requests;
+        slot.future = future;
+        slot.published = sequence;
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+        return future;
+    }
+
+    // Étage 1 : application séquentielle des commandes publiées
+    private void applyLoop() {
+        long next = 0;
+        int idle = 0;
+        while (next < closeSequence) {
+            long end = next;
+            long limit = next + maxBatch;
+            while (end < limit && slots[(int) (end & mask)].published == end) {
+                end++;
+            }
+            if (end == next) {
+                if (idle < SPIN_LIMIT) {
+                    idle = spin(idle);
+                    continue;
+                }
+                // Inactif : bloqué jusqu'à la prochaine publication (revérifiée après l'annonce)
+                writerParked = true;
+                if (slots[(int) (next & mask)].published != next && next < closeSequence) {
+                    LockSupport.park(this);
+                }
+                writerParked = false;
+                continue;
+            }
+            idle = 0;
+            for (long sequence = next; sequence < end; sequence++) {
+                apply(slots[(int) (sequence & mask)]);
+            }
+            applied = end;
+            if (journalerParked) {
+                LockSupport.unpark(journaler);
+            }
+            next = end;
+        }
+    }
+
+    private void apply(Slot slot) {
+        if (failure != null) {
+            slot.error = stopped();
+            return;
+        }
+        try {
+            switch (slot.kind) {
+                case DEPOSIT: {
+                    long credited = Math.addExact(balanceOf(loadActive(slot.from)), slot.montant.getMinorUnits());
+                    touch(slot, new UUID[] {slot.from}, new long[] {credited});
+                    record(slot);
+                    break;
+                }
+                case WITHDRAW: {
+                    long available = balanceOf(loadActive(slot.from));
+                    requireFunds(available, slot.montant);
+                    touch(slot, new UUID[] {slot.from}, new long[] {available - slot.montant.getMinorUnits()});
+                    record(slot);
+                    break;
+                }
+                case TRANSFER_ALL:
+                    applyAll(slot);
+                    break;
+                case DELETE:
+                    applyDelete(slot);
+                    break;
+                default: {
+                    long available = balanceOf(loadActive(slot.from));
+                    long destination = balanceOf(loadActive(slot.to));
+                    requireFunds(available, slot.montant);
+                    long credited = Math.addExact(destination, slot.montant.getMinorUnits());
+                    touch(slot, new UUID[] {slot.from, slot.to}, new long[] {available - slot.montant.getMinorUnits(), credited});
+                    record(slot);
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            slot.error = e;
+        }
+    }
+
+    private void applyDelete(Slot slot) {
+        Account account = accountRepository.findById(slot.from);
+        slot.touched = new UUID[0];
+        slot.balances = new long[0];
+        slot.legs = List.of();
+        if (account == null || deleted.contains(slot.from)) {
+            slot.result = false;
+            return;
+        }
+        if (balanceOf(account) > 0) {
+            throw new IllegalStateException("Impossible de supprimer un compte avec un solde positif!");
+        }
+        deleted.add(slot.from);
+        balances.remove(slot.from);
+        slot.result = true;
+    }
+
+    // Simulation sur une copie des soldes, puis application en entier ; un lot refusé ne modifie rien
+    private void applyAll(Slot slot) {
+        List<TransferRequest> requests = slot.requests;
+        Map<UUID, Long> simulated = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            try {
+                long amount = request.getMontant().getMinorUnits();
+                long available = simulatedBalance(request.getFromAccountId(), simulated);
+                if (available < amount) {
+                    throw new IllegalStateException("Solde insuffisant!");
+                }
+                long credited = Math.addExact(simulatedBalance(request.getToAccountId(), simulated), amount);
+                simulated.put(request.getFromAccountId(), available - amount);
+                simulated.put(request.getToAccountId(), credited);
+            } catch (RuntimeException e) {
+                touch(slot, new UUID[0], new long[0]);
+                slot.legs = List.of();
+                slot.result = BatchTransferResult.aborted(requests, i, e);
+                return;
+            }
+        }
+        UUID[] ids = simulated.keySet().toArray(new UUID[0]);
+        long[] values = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            values[i] = simulated.get(ids[i]);
+        }
+        List<TransferResult> results = new ArrayList<>(requests.size());
+        List<Transaction> legs = new ArrayList<>(transactionRepository == null ? 0 : requests.size() * 2);
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            List<Transaction> transfer = transactionRepository == null
+                    ? List.of()
+                    : transferLegs(request.getFromAccountId(), request.getToAccountId(), request.getMontant());
+            legs.addAll(transfer);
+            results.add(TransferResult.applied(i, request, transfer));
+        }
+        touch(slot, ids, values);
+        slot.legs = legs;
+        slot.result = new BatchTransferResult(results, true);
+    }
+
+    private long simulatedBalance(UUID accountId, Map<UUID, Long> simulated) {
+        Long balance = simulated.get(accountId);
+        if (balance != null) {
+            return balance;
+        }
+        long initial = balanceOf(loadActive(accountId));
+        simulated.put(accountId, initial);
+        return initial;
+    }
+
+    // Solde courant vu par l'écrivain : le sien s'il a déjà modifié le compte, sinon celui du repository
+    private long balanceOf(Account account) {
+        Long balance = balances.get(account.getId());
+        return balance != null ? balance : account.getSolde().getMinorUnits();
+    }
+
+    // Applique les nouveaux soldes (côté écrivain) et les note dans l'emplacement pour le journaliseur
+    private void touch(Slot slot, UUID[] ids, long[] values) {
+        for (int i = 0; i < ids.length; i++) {
+            balances.put(ids[i], values[i]);
+        }
+        slot.touched = ids;
+        slot.balances = values;
+    }
+
+    private void record(Slot slot) {
+        if (transactionRepository == null) {
+            slot.legs = List.of();
+            slot.result = slot.kind == Kind.TRANSFER ? slot.legs : null;
+            return;
+        }
+        UUID id = idClock.nextId();
+        switch (slot.kind) {
+            case DEPOSIT:
+                slot.legs = List.of(new Transaction(id, slot.from, idClock.dateOf(id), TransactionType.DEPOSIT, slot.montant, null));
+                break;
+            case WITHDRAW:
+                slot.legs = List.of(new Transaction(id, slot.from, idClock.dateOf(id), TransactionType.WITHDRAWAL, slot.montant.negate(), null));
+                break;
+            default:
+                slot.legs = transferLegs(id, slot.from, slot.to, slot.montant);
+                break;
+        }
+        slot.result = slot.kind == Kind.TRANSFER ? slot.legs : slot.legs.get(0);
+    }
+
+    private List<Transaction> transferLegs(UUID from, UUID to, Money montant) {
+        return transferLegs(idClock.nextId(), from, to, montant);
+    }
+
+    // Jambe débit puis jambe crédit, reliées par l'id de la jambe débit
+    private List<Transaction> transferLegs(UUID outId, UUID from, UUID to, Money montant) {
+        UUID inId = idClock.nextId();
+        return List.of(
+                new Transaction(outId, from, idClock.dateOf(outId), TransactionType.TRANSFER_OUT, montant.negate(), outId),
+                new Transaction(inId, to, idClock.dateOf(inId), TransactionType.TRANSFER_IN, montant, outId));
+    }
+
+    // Étage 2 : journalisation par lots puis notification
+    private void journalLoop() {
+        long next = 0;
+        int idle = 0;
+        while (next < closeSequence) {
+            long end = applied;
+            if (end == next) {
+                if (idle < SPIN_LIMIT) {
+                    idle = spin(idle);
+                    continue;
+                }
+                // Inactif : bloqué jusqu'à ce que l'écrivain avance
+                journalerParked = true;
+                if (applied == next && next < closeSequence) {
+                    LockSupport.park(this);
+                }
+                journalerParked = false;
+                continue;
+            }
+            idle = 0;
+            journal(next, end);
+            long size = end - next;
+            batches = batches + 1;
+            if (size > maxBatchSize) {
+                maxBatchSize = size;
+            }
+            completed = end;
+            next = end;
+        }
+    }
+
+    private void journal(long from, long to) {
+        Map<UUID, Long> accounts = new LinkedHashMap<>();
+        List<Transaction> transactions = new ArrayList<>();
+        List<UUID> deletions = new ArrayList<>();
+        for (long sequence = from; sequence < to; sequence++) {
+            Slot slot = slots[(int) (sequence & mask)];
+            if (slot.error == null) {
+                for (int i = 0; i < slot.touched.length; i++) {
+                    accounts.put(slot.touched[i], slot.balances[i]);
+                }
+                transactions.addAll(slot.legs);
+                if (slot.kind == Kind.DELETE && Boolean.TRUE.equals(slot.result)) {
+                    // Un compte supprimé n'est plus touché après sa suppression : inutile de le sauvegarder
+                    accounts.remove(slot.from);
+                    deletions.add(slot.from);
+                }
+            }
+        }
+        RuntimeException error = failure != null ? stopped() : null;
+        if (error == null) {
+            try {
+                // L'historique d'abord : un solde journalisé a toujours ses transactions
+                if (!transactions.isEmpty()) {
+                    transactionRepository.saveAll(transactions);
+                }
+                if (!accounts.isEmpty()) {
+                    accountRepository.saveAll(snapshots(accounts));
+                }
+                for (UUID accountId : deletions) {
+                    Account stored = accountRepository.findById(accountId);
+                    if (stored != null) {
+                        accountRepository.delete(stored);
+                    }
+                }
+            } catch (RuntimeException e) {
+                error = e;
+                failure = e;
+            }
+        }
+        for (long sequence = from; sequence < to; sequence++) {
+            Slot slot = slots[(int) (sequence & mask)];
+            notify(slot, slot.error != null ? slot.error : error);
+            slot.future = null;
+            slot.requests = null;
+            slot.touched = null;
+            slot.balances = null;
+            slot.legs = null;
+            slot.result = null;
+            slot.error = null;
+        }
+    }
+
+    // Copies des comptes avec le solde noté par l'écrivain (les autres champs sont ceux du repository)
+    private List<Account> snapshots(Map<UUID, Long> accounts) {
+        List<Account> snapshots = new ArrayList<>(accounts.size());
+        accounts.forEach((accountId, balance) -> {
+            Account stored = accountRepository.findById(accountId);
+            if (stored != null) {
+                Account snapshot = new Account(accountId, stored.getUserId(), stored.getType(), Money.ofMinor(balance));
+                snapshot.setStatus(stored.getStatus());
+                snapshots.add(snapshot);
+            }
+        });
+        return snapshots;
+    }
+
+    private IllegalStateException stopped() {
+        return new IllegalStateException("Le pipeline est arrêté après un échec de journalisation.", failure);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void notify(Slot slot, RuntimeException error) {
+        CompletableFuture<Object> future = (CompletableFuture<Object>) slot.future;
+        if (error != null) {
+            future.completeExceptionally(error);
+        } else {
+            future.complete(slot.result);
+        }
+    }
+
+    private Account loadActive(UUID accountId) {
+        Account account = accountRepository.findById(accountId);
+        if (account == null || deleted.contains(accountId)) {
+            throw new IllegalArgumentException("Compte introuvable: " + accountId);
+        }
+        if (!"active".equals(account.getStatus())) {
+            throw new IllegalStateException("Le compte n'est pas actif.");
+        }
+        return account;
+    }
+
+    private static void requireFunds(long available, Money montant) {
+        if (available < montant.getMinorUnits()) {
+            throw new IllegalStateException("Solde insuffisant!");
+        }
+    }
+
+    // Consommateurs : attente active courte, puis cession du processeur ; au-delà, ils se bloquent
+    private static int spin(int iterations) {
+        if (iterations < 100) {
+            Thread.onSpinWait();
+        } else {
+            Thread.yield();
+        }
+        return iterations + 1;
+    }
+
+    // Producteur face à un anneau plein (pipeline saturé) : attente active, puis sommeils brefs
+    private static int idle(int iterations) {
+        if (iterations < SPIN_LIMIT) {
+            return spin(iterations);
+        }
+        LockSupport.parkNanos(50_000);
+        return iterations + 1;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package app.services;
+
+/**
+ * Mesures du LedgerPipeline à un instant donné
+ */
+public final class PipelineStats {
+
+    private final long queueDepth;
+    private final long commands;
+    private final long batches;
+    private final long maxBatchSize;
+
+    PipelineStats(long queueDepth, long commands, long batches, long maxBatchSize) {
+        this.queueDepth = queueDepth;
+        this.commands = commands;
+        this.batches = batches;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    // Commandes soumises dont la future n'est pas encore complétée
+    public long getQueueDepth() {
+        return queueDepth;
+    }
+
+    // Commandes journalisées et notifiées depuis le démarrage
+    public long getCommands() {
+        return commands;
+    }
+
+    // Lots traités par l'étage de journalisation
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public double getAverageBatchSize() {
+        return batches == 0 ? 0 : (double) commands / batches;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("file: %d, commandes: %d, lots: %d (moyenne %.1f, max %d)",
+                queueDepth, commands, batches, getAverageBatchSize(), maxBatchSize);
+    }
+}
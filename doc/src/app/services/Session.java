@@ -0,0 +1,49 @@
+package app.services;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Session d'un utilisateur connecté, identifiée par un jeton opaque
+ * Créée et expirée par SessionStore ; un utilisateur peut en avoir plusieurs
+ */
+public final class Session {
+
+    private final String token;
+    private final UUID userId;
+    private final Instant createdAt;
+    // Horloge monotone de SessionStore, en millisecondes
+    private final long createdMillis;
+    private volatile long lastAccessMillis;
+    // Tick de la roue auquel la session est rangée (accédé par SessionStore sous le verrou du seau)
+    long wheelTick;
+
+    Session(String token, UUID userId, long nowMillis) {
+        this.token = token;
+        this.userId = userId;
+        this.createdAt = Instant.now();
+        this.createdMillis = nowMillis;
+        this.lastAccessMillis = nowMillis;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    void touch(long nowMillis) {
+        lastAccessMillis = nowMillis;
+    }
+
+    // Première des deux échéances : inactivité ou durée maximale
+    long deadline(long idleMillis, long absoluteMillis) {
+        return Math.min(lastAccessMillis + idleMillis, createdMillis + absoluteMillis);
+    }
+}
@@ -0,0 +1,258 @@
+package app.services;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sessions de connexion : jetons opaques, plusieurs sessions par utilisateur, expiration
+ * après inactivité ou au bout d'une durée maximale
+ *
+ * - recherche d'un jeton en O(1) (ConcurrentHashMap), index userId -> jetons
+ * - expiration par roue temporelle hachée : chaque session est rangée dans le seau du tick
+ *   de son échéance ; le thread « session-expiry » ne traite à chaque tick qu'un seul seau,
+ *   jamais l'ensemble des sessions
+ * - un accès ne touche pas la roue : il avance seulement la date de dernier accès ; quand le seau
+ *   d'une session encore active est traité, elle est re-rangée à sa nouvelle échéance
+ * - validate vérifie l'échéance elle-même : une session échue mais pas encore retirée de la roue
+ *   n'est jamais acceptée
+ * - une session invalidée reste dans son seau jusqu'à son tick, où elle est simplement ignorée
+ */
+public class SessionStore implements AutoCloseable {
+
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    public static final Duration DEFAULT_ABSOLUTE_TIMEOUT = Duration.ofHours(12);
+
+    // 512 seaux d'une seconde : un tour de roue couvre ~8,5 minutes
+    private static final int WHEEL_SIZE = 512;
+    private static final long TICK_MILLIS = 1000;
+    private static final int TOKEN_BYTES = 32;
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Set<String>> tokensByUser = new ConcurrentHashMap<>();
+    private final long idleMillis;
+    private final long absoluteMillis;
+    private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+    private final long startMillis;
+    // Dernier tick traité par le thread d'expiration
+    private volatile long currentTick;
+    private final SecureRandom random = new SecureRandom();
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    private final Thread ticker;
+    private volatile boolean closed;
+
+    public SessionStore() {
+        this(DEFAULT_IDLE_TIMEOUT, DEFAULT_ABSOLUTE_TIMEOUT);
+    }
+
+    /**
+     * @param idleTimeout Durée d'inactivité au-delà de laquelle la session expire
+     * @param absoluteTimeout Durée de vie maximale d'une session, même active
+     */
+    public SessionStore(Duration idleTimeout, Duration absoluteTimeout) {
+        if (idleTimeout.isNegative() || idleTimeout.isZero() || absoluteTimeout.isNegative() || absoluteTimeout.isZero()) {
+            throw new IllegalArgumentException("Les délais de session doivent être positifs!");
+        }
+        this.idleMillis = idleTimeout.toMillis();
+        this.absoluteMillis = absoluteTimeout.toMillis();
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.startMillis = now();
+        this.ticker = new Thread(this::tickLoop, "session-expiry");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Ouvre une nouvelle session, sans fermer les autres sessions de l'utilisateur
+     */
+    public Session create(UUID userId) {
+        if (closed) {
+            throw new IllegalStateException("Le gestionnaire de sessions est arrêté.");
+        }
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        Session session = new Session(encoder.encodeToString(bytes), userId, now());
+        sessions.put(session.getToken(), session);
+        tokensByUser.compute(userId, (id, tokens) -> {
+            Set<String> userTokens = tokens != null ? tokens : ConcurrentHashMap.newKeySet();
+            userTokens.add(session.getToken());
+            return userTokens;
+        });
+        schedule(session, session.deadline(idleMillis, absoluteMillis));
+        return session;
+    }
+
+    /**
+     * Session du jeton, prolongée (dernier accès = maintenant)
+     * @return null si le jeton est inconnu, invalidé ou expiré
+     */
+    public Session validate(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = now();
+        if (session.deadline(idleMillis, absoluteMillis) <= now) {
+            expire(session);
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    public boolean invalidate(String token) {
+        Session session = token == null ? null : sessions.remove(token);
+        if (session == null) {
+            return false;
+        }
+        unlinkUser(session);
+        return true;
+    }
+
+    // Ferme toutes les sessions de l'utilisateur (changement de mot de passe, déconnexion partout)
+    // Sérialisé avec create par le compute de l'utilisateur : une session créée en même temps
+    // est soit fermée ici, soit indexée après coup et donc encore invalidable
+    public int invalidateAll(UUID userId) {
+        int[] count = new int[1];
+        tokensByUser.computeIfPresent(userId, (id, tokens) -> {
+            for (String token : tokens) {
+                if (sessions.remove(token) != null) {
+                    count[0]++;
+                }
+            }
+            return null;
+        });
+        return count[0];
+    }
+
+    // Au moins une session non échue (sans la prolonger)
+    public boolean hasSession(UUID userId) {
+        Set<String> tokens = tokensByUser.get(userId);
+        if (tokens == null) {
+            return false;
+        }
+        long now = now();
+        for (String token : tokens) {
+            Session session = sessions.get(token);
+            if (session != null && session.deadline(idleMillis, absoluteMillis) > now) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int sessionCount(UUID userId) {
+        Set<String> tokens = tokensByUser.get(userId);
+        return tokens == null ? 0 : tokens.size();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ticker.interrupt();
+        try {
+            ticker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void schedule(Session session, long deadlineMillis) {
+        // Tick arrondi au supérieur : une session n'est jamais traitée avant son échéance
+        long tick = Math.max(Math.floorDiv(deadlineMillis - startMillis + TICK_MILLIS - 1, TICK_MILLIS), currentTick + 1);
+        Bucket bucket = wheel[(int) (tick & (WHEEL_SIZE - 1))];
+        bucket.lock.lock();
+        try {
+            session.wheelTick = tick;
+            bucket.sessions.add(session);
+        } finally {
+            bucket.lock.unlock();
+        }
+    }
+
+    private void tickLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(TICK_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long now = now();
+            long target = (now - startMillis) / TICK_MILLIS;
+            while (currentTick < target && !closed) {
+                long tick = currentTick + 1;
+                processBucket(tick, now);
+                currentTick = tick;
+            }
+        }
+    }
+
+    private void processBucket(long tick, long now) {
+        Bucket bucket = wheel[(int) (tick & (WHEEL_SIZE - 1))];
+        ArrayList<Session> due;
+        bucket.lock.lock();
+        try {
+            due = bucket.sessions;
+            bucket.sessions = new ArrayList<>();
+        } finally {
+            bucket.lock.unlock();
+        }
+        for (Session session : due) {
+            if (session.wheelTick > tick) {
+                // Échéance dans un tour suivant de la roue
+                requeue(bucket, session);
+            } else if (sessions.get(session.getToken()) == session) {
+                long deadline = session.deadline(idleMillis, absoluteMillis);
+                if (deadline <= now) {
+                    expire(session);
+                } else {
+                    schedule(session, deadline);
+                }
+            }
+        }
+    }
+
+    private static void requeue(Bucket bucket, Session session) {
+        bucket.lock.lock();
+        try {
+            bucket.sessions.add(session);
+        } finally {
+            bucket.lock.unlock();
+        }
+    }
+
+    private void expire(Session session) {
+        if (sessions.remove(session.getToken(), session)) {
+            unlinkUser(session);
+        }
+    }
+
+    private void unlinkUser(Session session) {
+        tokensByUser.computeIfPresent(session.getUserId(), (id, tokens) -> {
+            tokens.remove(session.getToken());
+            return tokens.isEmpty() ? null : tokens;
+        });
+    }
+
+    // Horloge monotone (insensible aux changements d'heure système)
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private static final class Bucket {
+        final ReentrantLock lock = new ReentrantLock();
+        ArrayList<Session> sessions = new ArrayList<>();
+    }
+}
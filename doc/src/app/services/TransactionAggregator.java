@@ -0,0 +1,293 @@
+package app.services;
+
+import app.models.Account;
+import app.models.Transaction;
+import app.repositories.AccountInterface;
+import app.repositories.ColumnarTransactionRepository;
+import app.repositories.TransactionInterface;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Agrégations (nombre, somme, min, max, moyenne) des transactions par compte, utilisateur,
+ * type de compte ou jour
+ *
+ * - les lignes sont découpées en plages traitées en parallèle sur un ForkJoinPool ;
+ *   chaque plage agrège dans ses propres accumulateurs, fusionnés à la remontée (aucun verrou partagé)
+ * - par compte : tableaux indexés par un indice dense du compte, pas de hachage par ligne ;
+ *   utilisateur et type de compte sont déduits à la fin, une recherche par compte
+ * - stockage en colonnes : parcours direct des colonnes par plages, sans copie ;
+ *   autres stockages : un instantané (compte, jour, montant) est d'abord pris en un parcours
+ * - les montants sont signés : la somme d'un groupe est son flux net
+ */
+public class TransactionAggregator {
+
+    // Nombre de lignes en dessous duquel une tâche ne se subdivise plus
+    private static final int TASK_THRESHOLD = 1 << 15;
+    private static final long MICROS_PER_DAY = 86_400_000_000L;
+
+    private final TransactionInterface transactionRepository;
+    private final AccountInterface accountRepository;
+    private final ForkJoinPool pool;
+
+    public TransactionAggregator(TransactionInterface transactionRepository, AccountInterface accountRepository) {
+        this(transactionRepository, accountRepository, ForkJoinPool.commonPool());
+    }
+
+    public TransactionAggregator(TransactionInterface transactionRepository, AccountInterface accountRepository, ForkJoinPool pool) {
+        // byUser et byAccountType résolvent les comptes : le repository de comptes est obligatoire
+        if (transactionRepository == null || accountRepository == null || pool == null) {
+            throw new IllegalArgumentException("Repositories et pool sont obligatoires!");
+        }
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.pool = pool;
+    }
+
+    public Map<UUID, AggregateStats> byAccount() {
+        RowSource source = source();
+        Partial partial = aggregate(source, false);
+        Map<UUID, AggregateStats> result = new HashMap<>();
+        for (int i = 0; i < partial.byAccount.length; i++) {
+            if (partial.byAccount[i] != null) {
+                result.put(source.accountId(i), partial.byAccount[i]);
+            }
+        }
+        return result;
+    }
+
+    // Les transactions des comptes supprimés sont regroupées sous la clé null
+    public Map<UUID, AggregateStats> byUser() {
+        Map<UUID, AggregateStats> result = new HashMap<>();
+        byAccount().forEach((accountId, stats) -> {
+            Account account = accountRepository.findById(accountId);
+            result.computeIfAbsent(account == null ? null : account.getUserId(), k -> new AggregateStats()).merge(stats);
+        });
+        return result;
+    }
+
+    // Les transactions des comptes supprimés sont regroupées sous la clé null
+    public Map<String, AggregateStats> byAccountType() {
+        Map<String, AggregateStats> result = new HashMap<>();
+        byAccount().forEach((accountId, stats) -> {
+            Account account = accountRepository.findById(accountId);
+            result.computeIfAbsent(account == null ? null : account.getType(), k -> new AggregateStats()).merge(stats);
+        });
+        return result;
+    }
+
+    // Jour de la date de la transaction (dates stockées sans fuseau)
+    public Map<LocalDate, AggregateStats> byDay() {
+        Partial partial = aggregate(source(), true);
+        Map<LocalDate, AggregateStats> result = new HashMap<>(partial.byDay.size() * 2);
+        partial.byDay.forEach((day, stats) -> result.put(LocalDate.ofEpochDay(day), stats));
+        return result;
+    }
+
+    public AggregateStats total() {
+        AggregateStats total = new AggregateStats();
+        for (AggregateStats stats : byAccount().values()) {
+            total.merge(stats);
+        }
+        return total;
+    }
+
+    private Partial aggregate(RowSource source, boolean byDay) {
+        int size = source.size();
+        if (size == 0) {
+            return new Partial();
+        }
+        return pool.invoke(new RangeTask(source, byDay, 0, size));
+    }
+
+    private RowSource source() {
+        if (transactionRepository instanceof ColumnarTransactionRepository) {
+            return new ColumnarSource((ColumnarTransactionRepository) transactionRepository);
+        }
+        return new SnapshotSource(transactionRepository);
+    }
+
+    // Une ligne : indice dense du compte, jour epoch, montant signé en centimes
+    @FunctionalInterface
+    private interface RowSink {
+        void accept(int accountIndex, long epochDay, long amountMinor);
+    }
+
+    private interface RowSource {
+        int size();
+        UUID accountId(int accountIndex);
+        void scan(int fromRow, int toRow, RowSink sink);
+    }
+
+    private static final class ColumnarSource implements RowSource {
+        private final ColumnarTransactionRepository repository;
+        // Figée au départ : les lignes ajoutées pendant l'agrégation sont ignorées
+        private final int size;
+
+        ColumnarSource(ColumnarTransactionRepository repository) {
+            this.repository = repository;
+            this.size = repository.size();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public UUID accountId(int accountIndex) {
+            return repository.getAccountId(accountIndex);
+        }
+
+        @Override
+        public void scan(int fromRow, int toRow, RowSink sink) {
+            repository.forEachRow(fromRow, toRow, row -> sink.accept(row.getAccountIndex(),
+                    Math.floorDiv(row.getEpochMicros(), MICROS_PER_DAY), row.getAmountMinor()));
+        }
+    }
+
+    // Copie compacte en colonnes primitives, prise en un seul parcours de forEach
+    private static final class SnapshotSource implements RowSource {
+        private final Map<UUID, Integer> accountIndexById = new HashMap<>();
+        private UUID[] accountIds = new UUID[64];
+        private int[] accounts = new int[1024];
+        private long[] days = new long[1024];
+        private long[] amounts = new long[1024];
+        private int size;
+
+        SnapshotSource(TransactionInterface repository) {
+            repository.forEach(this::append);
+        }
+
+        private void append(Transaction transaction) {
+            if (transaction.getAccountId() == null || transaction.getDateTransaction() == null) {
+                return;
+            }
+            if (size == accounts.length) {
+                accounts = Arrays.copyOf(accounts, size * 2);
+                days = Arrays.copyOf(days, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+            }
+            Integer account = accountIndexById.get(transaction.getAccountId());
+            if (account == null) {
+                account = accountIndexById.size();
+                accountIndexById.put(transaction.getAccountId(), account);
+                if (account == accountIds.length) {
+                    accountIds = Arrays.copyOf(accountIds, account * 2);
+                }
+                accountIds[account] = transaction.getAccountId();
+            }
+            accounts[size] = account;
+            days[size] = transaction.getDateTransaction().toLocalDate().toEpochDay();
+            amounts[size] = transaction.getMontant().getMinorUnits();
+            size++;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public UUID accountId(int accountIndex) {
+            return accountIds[accountIndex];
+        }
+
+        @Override
+        public void scan(int fromRow, int toRow, RowSink sink) {
+            for (int i = fromRow; i < toRow; i++) {
+                sink.accept(accounts[i], days[i], amounts[i]);
+            }
+        }
+    }
+
+    // Accumulateurs d'une plage de lignes
+    private static final class Partial {
+        private AggregateStats[] byAccount = new AggregateStats[0];
+        private final Map<Long, AggregateStats> byDay = new HashMap<>();
+        // Dernier jour vu : les lignes arrivent en général par ordre chronologique
+        private long lastDay = Long.MIN_VALUE;
+        private AggregateStats lastDayStats;
+
+        void addToAccount(int accountIndex, long amountMinor) {
+            if (accountIndex >= byAccount.length) {
+                byAccount = Arrays.copyOf(byAccount, Math.max(accountIndex + 1, byAccount.length * 2));
+            }
+            AggregateStats stats = byAccount[accountIndex];
+            if (stats == null) {
+                stats = new AggregateStats();
+                byAccount[accountIndex] = stats;
+            }
+            stats.add(amountMinor);
+        }
+
+        void addToDay(long epochDay, long amountMinor) {
+            if (epochDay != lastDay || lastDayStats == null) {
+                lastDay = epochDay;
+                lastDayStats = byDay.computeIfAbsent(epochDay, day -> new AggregateStats());
+            }
+            lastDayStats.add(amountMinor);
+        }
+
+        Partial merge(Partial other) {
+            if (other.byAccount.length > byAccount.length) {
+                byAccount = Arrays.copyOf(byAccount, other.byAccount.length);
+            }
+            for (int i = 0; i < other.byAccount.length; i++) {
+                if (other.byAccount[i] == null) {
+                    continue;
+                }
+                if (byAccount[i] == null) {
+                    byAccount[i] = other.byAccount[i];
+                } else {
+                    byAccount[i].merge(other.byAccount[i]);
+                }
+            }
+            other.byDay.forEach((day, stats) -> byDay.merge(day, stats, (left, right) -> {
+                left.merge(right);
+                return left;
+            }));
+            return this;
+        }
+    }
+
+    // Tâche sur une plage de lignes : subdivisée tant qu'elle contient plus de TASK_THRESHOLD lignes
+    private static final class RangeTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final RowSource source;
+        private final boolean byDay;
+        private final int lo;
+        private final int hi;
+
+        RangeTask(RowSource source, boolean byDay, int lo, int hi) {
+            this.source = source;
+            this.byDay = byDay;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (hi - lo > TASK_THRESHOLD) {
+                int mid = (lo + hi) >>> 1;
+                RangeTask right = new RangeTask(source, byDay, mid, hi);
+                right.fork();
+                Partial left = new RangeTask(source, byDay, lo, mid).compute();
+                return left.merge(right.join());
+            }
+            Partial partial = new Partial();
+            if (byDay) {
+                source.scan(lo, hi, (accountIndex, epochDay, amountMinor) -> partial.addToDay(epochDay, amountMinor));
+            } else {
+                source.scan(lo, hi, (accountIndex, epochDay, amountMinor) -> partial.addToAccount(accountIndex, amountMinor));
+            }
+            return partial;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package app.services;
+
+import app.models.Money;
+import app.models.Transaction;
+import java.util.List;
+
+/**
+ * Issue d'une opération de TransactionService, à afficher par la vue
+ */
+public final class TransactionResult {
+
+    public enum Status {
+        SUCCESS,
+        // Le compte n'existe pas ou n'appartient pas à l'utilisateur
+        ACCOUNT_NOT_FOUND,
+        ACCOUNT_INACTIVE,
+        INVALID_AMOUNT,
+        SAME_ACCOUNT,
+        DESTINATION_NOT_FOUND,
+        DESTINATION_INACTIVE,
+        INSUFFICIENT_FUNDS,
+        // Refus du registre non classé ci-dessus (voir getMessage)
+        REJECTED
+    }
+
+    private final Status status;
+    private final List<Transaction> transactions;
+    private final Money balance;
+    private final Money destinationBalance;
+    private final String message;
+
+    private TransactionResult(Status status, List<Transaction> transactions, Money balance, Money destinationBalance, String message) {
+        this.status = status;
+        this.transactions = transactions;
+        this.balance = balance;
+        this.destinationBalance = destinationBalance;
+        this.message = message;
+    }
+
+    static TransactionResult success(List<Transaction> transactions, Money balance, Money destinationBalance) {
+        return new TransactionResult(Status.SUCCESS, transactions, balance, destinationBalance, null);
+    }
+
+    static TransactionResult failure(Status status) {
+        return new TransactionResult(status, List.of(), null, null, null);
+    }
+
+    // Solde disponible au moment du refus
+    static TransactionResult insufficientFunds(Money balance) {
+        return new TransactionResult(Status.INSUFFICIENT_FUNDS, List.of(), balance, null, null);
+    }
+
+    static TransactionResult rejected(String message) {
+        return new TransactionResult(Status.REJECTED, List.of(), null, null, message);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    // Écritures créées (une pour un dépôt ou un retrait, deux pour un virement)
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    // Solde du compte après l'opération (null s'il n'a pas pu être relu), ou solde disponible si INSUFFICIENT_FUNDS
+    public Money getBalance() {
+        return balance;
+    }
+
+    // Virements : solde du compte destinataire après l'opération (null s'il n'a pas pu être relu)
+    public Money getDestinationBalance() {
+        return destinationBalance;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return status + (message != null ? " (" + message + ")" : "");
+    }
+}
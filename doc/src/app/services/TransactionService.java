@@ -1,144 +1,170 @@
 package app.services;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.math.BigDecimal;
+import java.util.stream.Stream;
 
 import app.models.Account;
+import app.models.Money;
 import app.models.Transaction;
-import app.models.User;
-import app.repositories.AccountRepository;
-import app.repositories.TransactionRepository;
+import app.repositories.AccountInterface;
+import app.repositories.TransactionInterface;
+import app.repositories.TransactionSummary;
 
+/**
+ * Opérations sur les comptes d'un utilisateur : une seule instance partagée, sans état
+ * Chaque méthode reçoit les ids de l'utilisateur et du compte et renvoie un TransactionResult ;
+ * l'affichage est fait par la vue (aucune écriture console ici)
+ */
 public class TransactionService {
 
-    public TransactionRepository transactionRepository;
-    public User currentUser;
-    public Account compte;
-    public Transaction transaction;
-    public AccountRepository accountRepository;
+    private static final int HISTORY_PAGE_SIZE = 100;
 
-    public TransactionService(TransactionRepository transactionRepository, User currentUser, Account compte,
-            Transaction transaction, AccountRepository accountRepository) {
+    private final TransactionInterface transactionRepository;
+    private final AccountInterface accountRepository;
+    private final LedgerInterface ledger;
+
+    public TransactionService(TransactionInterface transactionRepository, AccountInterface accountRepository, LedgerInterface ledger) {
         this.transactionRepository = transactionRepository;
-        this.currentUser = currentUser;
-        this.compte = compte;
-        this.transaction = transaction;
         this.accountRepository = accountRepository;
+        this.ledger = ledger;
+    }
+
+    public TransactionResult deposer(UUID userId, UUID accountId, Money montant) {
+        TransactionResult invalid = checkSource(userId, accountId, montant);
+        if (invalid != null) {
+            return invalid;
+        }
+        Transaction deposit;
+        try {
+            deposit = ledger.deposit(accountId, montant);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return classify(accountId, montant, e);
+        }
+        return TransactionResult.success(deposit == null ? List.of() : List.of(deposit), balanceAfter(accountId), null);
+    }
+
+    public TransactionResult withdraw(UUID userId, UUID accountId, Money montant) {
+        TransactionResult invalid = checkSource(userId, accountId, montant);
+        if (invalid != null) {
+            return invalid;
+        }
+        // Le solde est vérifié par le registre, de façon atomique
+        Transaction withdrawal;
+        try {
+            withdrawal = ledger.withdraw(accountId, montant);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return classify(accountId, montant, e);
+        }
+        return TransactionResult.success(withdrawal == null ? List.of() : List.of(withdrawal), balanceAfter(accountId), null);
     }
 
-    public void deposer(UUID userId, UUID accountId, BigDecimal montant) {
-        if (currentUser.getAccountById(accountId) == null) {
-            System.out.println("Erreur : tu doit crée un compte aux moinx pour fair déposer");
-            return;
+    public TransactionResult transfer(UUID userId, UUID accountId, UUID accountIdToTransfer, Money montant) {
+        TransactionResult invalid = checkSource(userId, accountId, montant);
+        if (invalid != null) {
+            return invalid;
         }
-        if (montant.compareTo(BigDecimal.ZERO) <= 0) {
-            System.out.println("Erreur: Le montant doit être supérieur à 0.");
-            return;
+        if (accountId.equals(accountIdToTransfer)) {
+            return TransactionResult.failure(TransactionResult.Status.SAME_ACCOUNT);
         }
-        if (!"active".equals(compte.getStatus())) {
-            System.out.println("Erreur: Le compte n'est pas actif.");
-            return;
-        }
-        compte.setSolde(compte.getSolde().add(montant));
-        Transaction depositTransaction = new Transaction(UUID.randomUUID(), accountId, java.time.LocalDateTime.now(),
-                montant);
-        transactionRepository.save(depositTransaction);
-        System.out.println("Dépôt effectué avec succès.");
+        Account compteDestinataire = accountRepository.findById(accountIdToTransfer);
+        if (compteDestinataire == null) {
+            return TransactionResult.failure(TransactionResult.Status.DESTINATION_NOT_FOUND);
+        }
+        if (!"active".equals(compteDestinataire.getStatus())) {
+            return TransactionResult.failure(TransactionResult.Status.DESTINATION_INACTIVE);
+        }
+        // Débit, crédit et les deux jambes du virement en une seule opération du registre
+        List<Transaction> legs;
+        try {
+            legs = ledger.transfer(accountId, accountIdToTransfer, montant);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return classify(accountId, montant, e);
+        }
+        return TransactionResult.success(legs, balanceAfter(accountId), balanceAfter(accountIdToTransfer));
     }
 
-    public void consultezTransaction(UUID userid, UUID accountId) {
+    /**
+     * Historique du compte par ordre chronologique, lu page par page : une seule page en mémoire
+     * Le flux doit être fermé par l'appelant (try-with-resources)
+     * @throws IllegalArgumentException si le compte n'appartient pas à l'utilisateur
+     */
+    public Stream<Transaction> consultezTransaction(UUID userId, UUID accountId) {
+        if (findOwnedAccount(userId, accountId) == null) {
+            throw new IllegalArgumentException("Compte introuvable: " + accountId);
+        }
+        return transactionRepository.streamByAccountId(accountId, HISTORY_PAGE_SIZE);
+    }
 
-        if (currentUser.getAccountById(accountId) == null) {
-            System.out.println("Erreur : tu doit crée un compte aux moinx pour voir les transactions");
-            return;
-        }
-        var listOfTransactions = transactionRepository.findByAccountId(accountId);
+    /**
+     * Totaux du compte sur les jours [from, to[, lus dans les cumuls journaliers (sans parcours)
+     * @throws IllegalArgumentException si le compte n'appartient pas à l'utilisateur
+     */
+    public TransactionSummary resumePeriode(UUID userId, UUID accountId, LocalDate from, LocalDate to) {
+        if (findOwnedAccount(userId, accountId) == null) {
+            throw new IllegalArgumentException("Compte introuvable: " + accountId);
+        }
+        return transactionRepository.summarize(accountId, from, to);
+    }
 
-        listOfTransactions.sort(Comparator.comparing(Transaction::getDateTransaction));
+    /**
+     * Solde du compte à une date passée (audit) : point de contrôle le plus proche
+     * puis au plus un bloc de transactions, quel que soit l'âge du compte
+     * @throws IllegalArgumentException si le compte n'appartient pas à l'utilisateur
+     */
+    public Money soldeAu(UUID userId, UUID accountId, LocalDateTime date) {
+        if (findOwnedAccount(userId, accountId) == null) {
+            throw new IllegalArgumentException("Compte introuvable: " + accountId);
+        }
+        return transactionRepository.balanceAsOf(accountId, date);
+    }
 
-        for (Transaction listOfTransaction : listOfTransactions) {
-            System.out.println("=".repeat(40));
-            System.out.println("ID of transaction        : " + listOfTransaction.getDateTransaction());
-            System.out.println("Account Id  : " + listOfTransaction.getAccountId());
-            System.out.println("Montant     : " + listOfTransaction.getMontant().setScale(2));
-            System.out.println("Date: " + listOfTransaction.getDateTransaction());
-            System.out.println("=".repeat(40));
+    private TransactionResult checkSource(UUID userId, UUID accountId, Money montant) {
+        Account compte = findOwnedAccount(userId, accountId);
+        if (compte == null) {
+            return TransactionResult.failure(TransactionResult.Status.ACCOUNT_NOT_FOUND);
+        }
+        if (!"active".equals(compte.getStatus())) {
+            return TransactionResult.failure(TransactionResult.Status.ACCOUNT_INACTIVE);
         }
+        if (montant == null || !montant.isPositive()) {
+            return TransactionResult.failure(TransactionResult.Status.INVALID_AMOUNT);
+        }
+        return null;
+    }
+
+    private Account findOwnedAccount(UUID userId, UUID accountId) {
+        Account compte = accountRepository.findById(accountId);
+        return compte != null && userId.equals(compte.getUserId()) ? compte : null;
     }
 
-    public void withdraw(UUID userId, UUID accountId, BigDecimal montant) {
-        if (currentUser.getAccountById(accountId) == null) {
-            System.out.println("Erreur : tu doit crée un compte aux moinx pour fair déposer");
-            return;
+    /**
+     * Solde relu une fois l'opération acquittée : l'argent a déjà bougé, un échec de cette lecture
+     * (compte supprimé entre-temps) ne doit pas faire passer l'opération pour refusée
+     * @return null si le compte n'est plus lisible
+     */
+    private Money balanceAfter(UUID accountId) {
+        try {
+            return ledger.balanceOf(accountId);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return null;
         }
-        if (!"active".equals(compte.getStatus())) {
-            System.out.println("Erreur: Le compte n'est pas actif.");
-            return;
-        }
-        if(montant.compareTo(BigDecimal.ZERO) <= 0){
-            System.out.println("Erreur: Le montant doit être supérieur à 0.");
-            return;
-        }
-        
-        if (compte.getSolde().compareTo(montant) < 0) {
-            System.out.println("Erreur: Solde insuffisant pour effectuer ce retrait.");
-            System.out.println("Solde disponible: " + compte.getSolde().setScale(2) + "€");
-            return;
-        }
-        
-        compte.setSolde(compte.getSolde().subtract(montant));
-        Transaction withdrawTransaction = new Transaction(UUID.randomUUID(), accountId, java.time.LocalDateTime.now(), montant);
-        transactionRepository.save(withdrawTransaction);
-        System.out.println("Withdraw effectué avec succès.");
     }
 
-    public  void transfer(UUID userId, UUID accountId, UUID accountIdToTransfer, BigDecimal montant){
-        if(currentUser.getAccountById(accountId) == null){
-            System.out.println("Erreur : tu doit crée un compte aux moinx pour fair déposer");
-            return;
+    // Refus du registre : l'état du compte relu après coup donne la cause
+    private TransactionResult classify(UUID accountId, Money montant, RuntimeException e) {
+        Account compte = accountRepository.findById(accountId);
+        if (compte == null) {
+            return TransactionResult.failure(TransactionResult.Status.ACCOUNT_NOT_FOUND);
         }
         if (!"active".equals(compte.getStatus())) {
-            System.out.println("Erreur: Le compte n'est pas actif.");
-            return;
+            return TransactionResult.failure(TransactionResult.Status.ACCOUNT_INACTIVE);
         }
-        
-        if (accountId.equals(accountIdToTransfer)) {
-            System.out.println("Erreur: Impossible de virer vers le même compte.");
-            return;
+        Money solde = compte.getSolde();
+        if (solde.compareTo(montant) < 0) {
+            return TransactionResult.insufficientFunds(solde);
         }
-        
-        Account compteDestinataire = accountRepository.findById(accountIdToTransfer);
-        if (compteDestinataire == null) {
-            System.out.println("Erreur : Le compte destinataire n'existe pas.");
-            return;
-        }
-        if (!"active".equals(compteDestinataire.getStatus())) {
-            System.out.println("Erreur: Le compte destinataire n'est pas actif.");
-            return;
-        }
-        if(montant.compareTo(BigDecimal.ZERO) <= 0){
-            System.out.println("Erreur: Le montant doit être supérieur à 0.");
-            return;
-        }
-        
-        if (compte.getSolde().compareTo(montant) < 0) {
-            System.out.println("Erreur: Solde insuffisant pour effectuer ce virement.");
-            System.out.println("Solde disponible: " + compte.getSolde().setScale(2) + "€");
-            return;
-        }
-        
-        compte.setSolde(compte.getSolde().subtract(montant));
-        compteDestinataire.setSolde(compteDestinataire.getSolde().add(montant));
-        
-        Transaction transferOutTransaction = new Transaction(UUID.randomUUID(), accountId, java.time.LocalDateTime.now(), montant);
-        Transaction transferInTransaction = new Transaction(UUID.randomUUID(), accountIdToTransfer, java.time.LocalDateTime.now(), montant);
-        
-        transactionRepository.save(transferOutTransaction);
-        transactionRepository.save(transferInTransaction);
-        
-        System.out.println("Virement effectué avec succès.");
-        System.out.println("Nouveau solde compte source: " + compte.getSolde().setScale(2) + "€");
-        System.out.println("Nouveau solde compte destinataire: " + compteDestinataire.getSolde().setScale(2) + "€");
+        return TransactionResult.rejected(e.getMessage());
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package app.services;
+
+import app.models.Money;
+import java.util.UUID;
+
+/**
+ * Un virement d'un lot : compte source, compte destination, montant
+ */
+public final class TransferRequest {
+
+    private final UUID fromAccountId;
+    private final UUID toAccountId;
+    private final Money montant;
+
+    public TransferRequest(UUID fromAccountId, UUID toAccountId, Money montant) {
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.montant = montant;
+    }
+
+    public UUID getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public UUID getToAccountId() {
+        return toAccountId;
+    }
+
+    public Money getMontant() {
+        return montant;
+    }
+
+    // Erreur de forme détectable sans lire les comptes, ou null
+    IllegalArgumentException validate() {
+        if (fromAccountId == null || toAccountId == null) {
+            return new IllegalArgumentException("Compte source et destination obligatoires!");
+        }
+        if (montant == null || !montant.isPositive()) {
+            return new IllegalArgumentException("Le montant doit être positif!");
+        }
+        if (fromAccountId.equals(toAccountId)) {
+            return new IllegalArgumentException("Impossible de virer vers le même compte.");
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return fromAccountId + " -> " + toAccountId + " : " + montant;
+    }
+}
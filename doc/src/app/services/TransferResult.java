@@ -0,0 +1,77 @@
+package app.services;
+
+import app.models.Transaction;
+import java.util.List;
+
+/**
+ * Issue d'un virement d'un lot
+ */
+public final class TransferResult {
+
+    public enum Status {
+        // Virement effectué
+        APPLIED,
+        // Virement refusé (requête invalide, compte inactif, solde insuffisant...)
+        FAILED,
+        // Lot tout-ou-rien annulé à cause d'un autre élément : rien n'a été écrit
+        ABORTED
+    }
+
+    private final int index;
+    private final TransferRequest request;
+    private final Status status;
+    private final List<Transaction> transactions;
+    private final RuntimeException error;
+
+    private TransferResult(int index, TransferRequest request, Status status, List<Transaction> transactions, RuntimeException error) {
+        this.index = index;
+        this.request = request;
+        this.status = status;
+        this.transactions = transactions;
+        this.error = error;
+    }
+
+    static TransferResult applied(int index, TransferRequest request, List<Transaction> transactions) {
+        return new TransferResult(index, request, Status.APPLIED, transactions, null);
+    }
+
+    static TransferResult failed(int index, TransferRequest request, RuntimeException error) {
+        return new TransferResult(index, request, Status.FAILED, List.of(), error);
+    }
+
+    static TransferResult aborted(int index, TransferRequest request) {
+        return new TransferResult(index, request, Status.ABORTED, List.of(), null);
+    }
+
+    // Position de l'élément dans le lot soumis
+    public int getIndex() {
+        return index;
+    }
+
+    public TransferRequest getRequest() {
+        return request;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isApplied() {
+        return status == Status.APPLIED;
+    }
+
+    // Les deux jambes du virement s'il a été effectué, sinon liste vide
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    // Cause de l'échec (FAILED uniquement), sinon null
+    public RuntimeException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + index + " " + status + (error != null ? " (" + error.getMessage() + ")" : "");
+    }
+}
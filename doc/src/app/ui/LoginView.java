@@ -8,6 +8,7 @@ public class LoginView {
     private Scanner scanner = new Scanner(System.in);
     private AuthService authService;
     private User loggedInUser = null;
+    private String sessionToken = null;
 
     public LoginView(AuthService authService) {
         this.authService = authService;
@@ -35,8 +36,9 @@ public class LoginView {
         }
         
         // Tentative de connexion
-        if (authService.login(email, password)) {
-            loggedInUser = authService.getLoggedInUserByEmail(email);
+        sessionToken = authService.login(email, password);
+        if (sessionToken != null) {
+            loggedInUser = authService.getUserBySession(sessionToken);
             showSuccessMessage();
             return true;
         } else {
@@ -49,6 +51,10 @@ public class LoginView {
         return loggedInUser;
     }
 
+    public String getSessionToken() {
+        return sessionToken;
+    }
+
     public void showSuccessMessage() {
         System.out.println("Connexion réussie!");
     }
@@ -2,15 +2,18 @@ package app.ui;
 
 import app.models.User;
 import app.models.Account;
+import app.models.Money;
+import app.models.Transaction;
+import app.repositories.TransactionSummary;
+import app.services.TransactionResult;
 import app.services.TransactionService;
 import app.services.AccountService;
-import app.repositories.TransactionRepository;
-import app.repositories.AccountRepository;
 import app.utils.ValidationUtils;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.Scanner;
 import java.util.UUID;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.stream.Stream;
 
 /**
  * Interface utilisateur pour la gestion des transactions bancaires
@@ -21,29 +24,12 @@ public class TransactionView {
     private Scanner scanner = new Scanner(System.in);
     private User currentUser;
     private AccountService accountService;
-    private TransactionRepository transactionRepository;
-    private AccountRepository accountRepository;
+    private TransactionService transactionService;
 
-    public TransactionView(User user, AccountService accountService, TransactionRepository transactionRepository, AccountRepository accountRepository) {
+    public TransactionView(User user, AccountService accountService, TransactionService transactionService) {
         this.currentUser = user;
         this.accountService = accountService;
-        this.transactionRepository = transactionRepository;
-        this.accountRepository = accountRepository;
-    }
-    
-    /**
-     * Crée une instance de TransactionService avec les paramètres appropriés
-     * @param selectedAccount Le compte sélectionné pour l'opération
-     * @return Instance de TransactionService
-     */
-    private TransactionService createTransactionService(Account selectedAccount) {
-        return new TransactionService(
-            transactionRepository,
-            currentUser,
-            selectedAccount,
-            null,
-            accountRepository
-        );
+        this.transactionService = transactionService;
     }
     
     /**
@@ -116,13 +102,16 @@ public class TransactionView {
             return;
         }
         
-        BigDecimal montant = saisirMontant("dépôt");
+        Money montant = saisirMontant("dépôt");
         if (montant == null) {
             return;
         }
         
-        TransactionService transactionService = createTransactionService(selectedAccount);
-        transactionService.deposer(currentUser.getId(), selectedAccount.getId(), montant);
+        TransactionResult result = transactionService.deposer(currentUser.getId(), selectedAccount.getId(), montant);
+        afficherResultat(result, "dépôt");
+        if (result.isSuccess()) {
+            System.out.println("Dépôt effectué avec succès.");
+        }
     }
     
     private void effectuerRetrait() {
@@ -135,15 +124,18 @@ public class TransactionView {
             return;
         }
         
-        System.out.println("Solde actuel: " + selectedAccount.getSolde().setScale(2) + "€");
+        System.out.println("Solde actuel: " + selectedAccount.getSolde() + "€");
         
-        BigDecimal montant = saisirMontant("retrait");
+        Money montant = saisirMontant("retrait");
         if (montant == null) {
             return;
         }
         
-        TransactionService transactionService = createTransactionService(selectedAccount);
-        transactionService.withdraw(currentUser.getId(), selectedAccount.getId(), montant);
+        TransactionResult result = transactionService.withdraw(currentUser.getId(), selectedAccount.getId(), montant);
+        afficherResultat(result, "retrait");
+        if (result.isSuccess()) {
+            System.out.println("Withdraw effectué avec succès.");
+        }
     }
     
 
@@ -157,7 +149,7 @@ public class TransactionView {
             return;
         }
 
-        System.out.println("Solde actuel: " + selectedAccount.getSolde().setScale(2) + "€");
+        System.out.println("Solde actuel: " + selectedAccount.getSolde() + "€");
 
         System.out.print("\nSaisissez l'ID du compte destinataire: ");
         String destinataireIdStr = scanner.nextLine().trim();
@@ -175,13 +167,59 @@ public class TransactionView {
             return;
         }
 
-        BigDecimal montant = saisirMontant("virement");
+        Money montant = saisirMontant("virement");
         if (montant == null) {
             return;
         }
 
-        TransactionService transactionService = createTransactionService(selectedAccount);
-        transactionService.transfer(currentUser.getId(), selectedAccount.getId(), destinataireId, montant);
+        TransactionResult result = transactionService.transfer(currentUser.getId(), selectedAccount.getId(), destinataireId, montant);
+        afficherResultat(result, "virement");
+        if (result.isSuccess()) {
+            System.out.println("Virement effectué avec succès.");
+            // Soldes relus après coup : absents si un compte a été supprimé entre-temps
+            if (result.getBalance() != null) {
+                System.out.println("Nouveau solde compte source: " + result.getBalance() + "€");
+            }
+            if (result.getDestinationBalance() != null) {
+                System.out.println("Nouveau solde compte destinataire: " + result.getDestinationBalance() + "€");
+            }
+        }
+    }
+    
+    /**
+     * Affiche le message d'erreur correspondant à un résultat en échec
+     * @param result Résultat renvoyé par TransactionService
+     * @param operation Le type d'opération (pour affichage)
+     */
+    private void afficherResultat(TransactionResult result, String operation) {
+        switch (result.getStatus()) {
+            case SUCCESS:
+                break;
+            case ACCOUNT_NOT_FOUND:
+                System.out.println("Erreur : tu doit crée un compte aux moinx pour fair déposer");
+                break;
+            case ACCOUNT_INACTIVE:
+                System.out.println("Erreur: Le compte n'est pas actif.");
+                break;
+            case INVALID_AMOUNT:
+                System.out.println("Erreur: Le montant doit être supérieur à 0.");
+                break;
+            case SAME_ACCOUNT:
+                System.out.println("Erreur: Impossible de virer vers le même compte.");
+                break;
+            case DESTINATION_NOT_FOUND:
+                System.out.println("Erreur : Le compte destinataire n'existe pas.");
+                break;
+            case DESTINATION_INACTIVE:
+                System.out.println("Erreur: Le compte destinataire n'est pas actif.");
+                break;
+            case INSUFFICIENT_FUNDS:
+                System.out.println("Erreur: Solde insuffisant pour effectuer ce " + operation + ".");
+                System.out.println("Solde disponible: " + result.getBalance() + "€");
+                break;
+            default:
+                System.out.println("Erreur: " + result.getMessage());
+        }
     }
     
     /**
@@ -197,8 +235,29 @@ public class TransactionView {
             return;
         }
         
-        TransactionService transactionService = createTransactionService(selectedAccount);
-        transactionService.consultezTransaction(currentUser.getId(), selectedAccount.getId());
+        // Lecture page par page, déjà triée par date : une seule page en mémoire
+        try (Stream<Transaction> transactions = transactionService.consultezTransaction(currentUser.getId(), selectedAccount.getId())) {
+            transactions.forEach(transaction -> {
+                System.out.println("=".repeat(40));
+                System.out.println("ID of transaction        : " + transaction.getId());
+                System.out.println("Account Id  : " + transaction.getAccountId());
+                System.out.println("Type        : " + transaction.getType());
+                System.out.println("Montant     : " + transaction.getMontant());
+                System.out.println("Date: " + transaction.getDateTransaction());
+                System.out.println("=".repeat(40));
+            });
+            // Les dates des transactions sont en UTC (IdClock)
+            LocalDate aujourdhui = LocalDate.now(ZoneOffset.UTC);
+            LocalDate demain = aujourdhui.plusDays(1);
+            TransactionSummary mois = transactionService.resumePeriode(currentUser.getId(), selectedAccount.getId(),
+                    aujourdhui.withDayOfMonth(1), demain);
+            TransactionSummary trimestre = transactionService.resumePeriode(currentUser.getId(), selectedAccount.getId(),
+                    demain.minusDays(90), demain);
+            System.out.println("Ce mois-ci           : déposé " + mois.getCredits() + ", retiré " + mois.getDebits().negate());
+            System.out.println("Flux net sur 90 jours: " + trimestre.getNet());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Erreur : tu doit crée un compte aux moinx pour voir les transactions");
+        }
     }
     
     /**
@@ -207,7 +266,7 @@ public class TransactionView {
      * @return Le compte sélectionné ou null si annulation
      */
     private Account selectAccount(String operation) {
-        var accounts = currentUser.getAccounts();
+        var accounts = accountService.getAccounts(currentUser.getId());
         
         if (accounts.isEmpty()) {
             System.out.println("Aucun compte disponible pour " + operation);
@@ -221,7 +280,7 @@ public class TransactionView {
             Account account = accounts.get(i);
             System.out.println((i + 1) + ". " + account.getType() + 
                              " (ID: " + account.getId() + ")");
-            System.out.println("   Solde: " + account.getSolde().setScale(2) + "€");
+            System.out.println("   Solde: " + account.getSolde() + "€");
         }
         
         System.out.println((accounts.size() + 1) + ". Annuler");
@@ -248,7 +307,7 @@ public class TransactionView {
      * @param operation Le type d'opération (pour affichage)
      * @return Le montant saisi ou null si erreur/annulation
      */
-    private BigDecimal saisirMontant(String operation) {
+    private Money saisirMontant(String operation) {
         System.out.print("\nMontant pour " + operation + " (ex: 50.00): ");
         String montantStr = scanner.nextLine().trim();
         
@@ -258,8 +317,8 @@ public class TransactionView {
         }
         
         try {
-            return new BigDecimal(montantStr).setScale(2, RoundingMode.HALF_UP);
-        } catch (NumberFormatException e) {
+            return Money.parse(montantStr);
+        } catch (NumberFormatException | ArithmeticException e) {
             System.out.println("Format de montant invalide! Utilisez le format: 50.00");
             return null;
         }
@@ -2,38 +2,40 @@ package app.ui;
 
 import app.models.User;
 import app.models.Account;
+import app.models.Money;
 import app.services.AuthService;
 import app.services.AccountService;
-import app.repositories.TransactionRepository;
-import app.repositories.AccountRepository;
+import app.services.TransactionService;
 import app.utils.ValidationUtils;
 import java.util.Scanner;
 import java.util.UUID;
-import java.math.BigDecimal;
 
 public class UserDashboard {
 
     private Scanner scanner = new Scanner(System.in);
     private User currentUser;
+    private String sessionToken;
     private AuthService authService;
     private AccountService accountService;
-    private TransactionRepository transactionRepository;
-    private AccountRepository accountRepository;
     private TransactionView transactionView;
 
-    public UserDashboard(User user, AuthService authService, AccountService accountService, TransactionRepository transactionRepository, AccountRepository accountRepository) {
+    public UserDashboard(User user, String sessionToken, AuthService authService, AccountService accountService, TransactionService transactionService) {
         this.currentUser = user;
+        this.sessionToken = sessionToken;
         this.authService = authService;
         this.accountService = accountService;
-        this.transactionRepository = transactionRepository;
-        this.accountRepository = accountRepository;
-        this.transactionView = new TransactionView(user, accountService, transactionRepository, accountRepository);
+        this.transactionView = new TransactionView(user, accountService, transactionService);
     }
     
     public boolean showDashboard() {
         boolean running = true;
         
         while (running) {
+            // Chaque action prolonge la session ; une session expirée renvoie au menu de connexion
+            if (!reloadUser()) {
+                System.out.println("Session expirée, veuillez vous reconnecter.");
+                return true;
+            }
             displayUserInfo();
             int choice = displayMenu();
             
@@ -58,7 +60,7 @@ public class UserDashboard {
                     break;
                 case 7:
                     if (confirmLogout()) {
-                        authService.logout(currentUser.getId().toString());
+                        authService.logout(sessionToken);
                         System.out.println("Déconnexion réussie!");
                         return true; // Logout requested
                     }
@@ -70,6 +72,19 @@ public class UserDashboard {
         return false;
     }
     
+    /**
+     * Relit l'utilisateur de la session (qui est prolongée)
+     * @return false si la session a expiré (l'utilisateur affiché est conservé)
+     */
+    private boolean reloadUser() {
+        User user = authService.getUserBySession(sessionToken);
+        if (user == null) {
+            return false;
+        }
+        currentUser = user;
+        return true;
+    }
+
     /**
      * Gère l'accès aux transactions via TransactionView
      */
@@ -83,7 +98,7 @@ public class UserDashboard {
         System.out.println("=".repeat(50));
         System.out.println("Email: " + currentUser.getEmail());
         System.out.println("Adresse: " + currentUser.getAdress());
-        System.out.println("Statut: " + (currentUser.isLoggedIn() ? "Connecté" : "Déconnecté"));
+        System.out.println("Statut: " + (authService.isUserLoggedIn(currentUser.getId().toString()) ? "Connecté" : "Déconnecté"));
         System.out.println("=".repeat(50));
     }
 
@@ -118,8 +133,21 @@ public class UserDashboard {
             currentUser.setAdress(newAddress);
         }
         
-        authService.updateUser(currentUser);
-        System.out.println("Profil mis à jour avec succès!");
+        System.out.print("Nouvel email (actuel: " + currentUser.getEmail() + "): ");
+        String newEmail = scanner.nextLine().trim();
+        if (!newEmail.isEmpty()) {
+            if (!ValidationUtils.isValidEmail(newEmail)) {
+                System.out.println(ValidationUtils.ErrorMessages.INVALID_EMAIL);
+            } else if (!authService.changeEmail(currentUser, newEmail)) {
+                System.out.println("Erreur: Cet email est déjà utilisé! Email inchangé.");
+            }
+        }
+        
+        if (authService.updateUser(currentUser)) {
+            System.out.println("Profil mis à jour avec succès!");
+        } else {
+            System.out.println("Erreur: Cet email est déjà utilisé! Profil inchangé.");
+        }
     }
 
     private void changePassword() {
@@ -150,8 +178,11 @@ public class UserDashboard {
         }
         
         currentUser.setPassword(newPassword);
-        authService.updateUser(currentUser);
-        System.out.println("Mot de passe changé avec succès!");
+        if (authService.updateUser(currentUser)) {
+            System.out.println("Mot de passe changé avec succès!");
+        } else {
+            System.out.println("Erreur: Cet email est déjà utilisé! Mot de passe inchangé.");
+        }
     }
 
     private void showAccountDetails() {
@@ -162,7 +193,7 @@ public class UserDashboard {
         System.out.println("Nom: " + currentUser.getFullName());
         System.out.println("Email: " + currentUser.getEmail());
         System.out.println("Adresse: " + currentUser.getAdress());
-        System.out.println("Statut: " + (currentUser.isLoggedIn() ? "Connecté" : "Déconnecté"));
+        System.out.println("Statut: " + (authService.isUserLoggedIn(currentUser.getId().toString()) ? "Connecté" : "Déconnecté"));
         System.out.println("Session: Active");
         System.out.println("=".repeat(40));
     }
@@ -201,8 +232,8 @@ public class UserDashboard {
             System.out.println("=".repeat(40));
             
             // Recharger l'utilisateur pour avoir le compte exact
-            currentUser = authService.getLoggedInUserByEmail(currentUser.getEmail());
-            int compteCount = currentUser.getAccounts() != null ? currentUser.getAccounts().size() : 0;
+            reloadUser();
+            int compteCount = currentUser.getAccountCount();
             
             System.out.println("1. Voir mes comptes (" + compteCount + " comptes)");
             System.out.println("2. Créer nouveau compte");
@@ -285,7 +316,7 @@ public class UserDashboard {
             
             if (success) {
                 // Recharger l'utilisateur pour avoir les données à jour
-                currentUser = authService.getLoggedInUserByEmail(currentUser.getEmail());
+                reloadUser();
                 
                 System.out.println("Compte créé avec succès!");
                 System.out.println("Type: " + selectedType.getDisplayName());
@@ -307,27 +338,27 @@ public class UserDashboard {
         System.out.println("=".repeat(50));
         
         // Recharger l'utilisateur pour avoir les données les plus récentes
-        currentUser = authService.getLoggedInUserByEmail(currentUser.getEmail());
+        reloadUser();
         
-        if (currentUser.getAccounts() == null || currentUser.getAccounts().isEmpty()) {
+        var accounts = accountService.getAccounts(currentUser.getId());
+        if (accounts.isEmpty()) {
             System.out.println("Aucun compte bancaire trouvé.");
             System.out.println("   Créez votre premier compte dans l'option 2!");
             return;
         }
         
-        var accounts = currentUser.getAccounts();
         for (int i = 0; i < accounts.size(); i++) {
             Account account = accounts.get(i);
             System.out.println((i + 1) + ". " + account.getType());
             System.out.println("ID: " + account.getId());
-            System.out.println("Solde: " + account.getSolde().doubleValue() + "€");
+            System.out.println("Solde: " + account.getSolde() + "€");
             System.out.println("   " + "-".repeat(30));
         }
         
-        BigDecimal totalSolde = accounts.stream()
+        Money totalSolde = accounts.stream()
                 .map(Account::getSolde)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        System.out.println("SOLDE TOTAL: " + totalSolde.doubleValue() + "€");
+                .reduce(Money.ZERO, Money::add);
+        System.out.println("SOLDE TOTAL: " + totalSolde + "€");
         System.out.println("=".repeat(50));
     }
     
@@ -354,7 +385,7 @@ public class UserDashboard {
             boolean success = accountService.deleteAccount(currentUser.getId(), accountId);
             
             if (success) {
-                currentUser = authService.getLoggedInUserByEmail(currentUser.getEmail());
+                reloadUser();
                 System.out.println("Compte supprimé avec succès!");
             } else {
                 System.out.println("Compte non trouvé!");
@@ -0,0 +1,25 @@
+package app.utils;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Source d'identifiants et d'horodatages pour les services
+ */
+public interface IdClock {
+
+    /**
+     * Nouvel identifiant unique ; les identifiants successifs d'un même thread sont croissants
+     */
+    UUID nextId();
+
+    /**
+     * Horodatage UTC, monotone pour un même thread (jamais en arrière)
+     */
+    LocalDateTime now();
+
+    /**
+     * Date de création encodée dans un identifiant émis par nextId()
+     */
+    LocalDateTime dateOf(UUID id);
+}
@@ -0,0 +1,79 @@
+package app.utils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Identifiants UUIDv7 et horodatages issus d'une même horloge UTC en microsecondes
+ *
+ * Chaque thread garde son dernier horodatage et avance en max(heure système, dernier + 1) :
+ * aucun état partagé entre threads (ni CAS, ni verrou, ni SecureRandom). Un UUID encode les
+ * millisecondes sur 48 bits puis les microsecondes restantes dans rand_a (méthode "précision
+ * accrue" de la RFC 9562) ; rand_b (62 bits) vient de ThreadLocalRandom et départage deux ids
+ * émis à la même microseconde par deux threads. Les ids se trient donc par date de création,
+ * y compris avec UUID.compareTo, et dateOf(id) redonne exactement l'horodatage de l'id.
+ *
+ * Les horodatages sont en UTC, comme les encodages du journal et du stockage colonne :
+ * un changement d'heure (passage à l'heure d'hiver) ne les fait jamais reculer.
+ * Au-delà d'un million d'appels par seconde sur un thread, son horloge avance plus vite que
+ * l'heure système puis la rattrape quand la charge baisse.
+ */
+public class TimeOrderedIdClock implements IdClock {
+
+    private static final TimeOrderedIdClock DEFAULT = new TimeOrderedIdClock();
+
+    // Dernier horodatage (en microsecondes) émis par le thread courant
+    private final ThreadLocal<long[]> lastMicros = ThreadLocal.withInitial(() -> new long[1]);
+
+    public TimeOrderedIdClock() {
+    }
+
+    /**
+     * Instance partagée par les services
+     */
+    public static TimeOrderedIdClock getDefault() {
+        return DEFAULT;
+    }
+
+    @Override
+    public UUID nextId() {
+        long micros = tick();
+        long millis = micros / 1000;
+        long subMillis = micros % 1000;
+        long mostBits = (millis << 16) | 0x7000L | subMillis;
+        long leastBits = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostBits, leastBits);
+    }
+
+    @Override
+    public LocalDateTime now() {
+        return toLocalDateTime(tick());
+    }
+
+    @Override
+    public LocalDateTime dateOf(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Identifiant non horodaté: " + id);
+        }
+        long mostBits = id.getMostSignificantBits();
+        long micros = (mostBits >>> 16) * 1000 + (mostBits & 0xFFFL);
+        return toLocalDateTime(micros);
+    }
+
+    private long tick() {
+        Instant instant = Instant.now();
+        long now = instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1000;
+        long[] last = lastMicros.get();
+        long next = Math.max(now, last[0] + 1);
+        last[0] = next;
+        return next;
+    }
+
+    private static LocalDateTime toLocalDateTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+}
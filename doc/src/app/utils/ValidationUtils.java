@@ -1,6 +1,8 @@
 package app.utils;
 
+import app.models.Money;
 import java.math.BigDecimal;
+import java.util.Locale;
 import java.util.UUID;
 import java.util.regex.Pattern;
 
@@ -35,6 +37,15 @@ public class ValidationUtils {
         return email != null && EMAIL_PATTERN.matcher(email.trim()).matches();
     }
     
+    /**
+     * Normalise un email pour les recherches et l'unicité (trim + minuscules)
+     * @param email L'email à normaliser
+     * @return L'email normalisé, ou null si email est null
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+    
     /**
      * Valide qu'un montant est positif (règle métier bancaire)
      * @param montant Le montant BigDecimal à valider
@@ -44,6 +55,15 @@ public class ValidationUtils {
         return montant != null && montant.compareTo(BigDecimal.ZERO) > 0;
     }
     
+    /**
+     * Valide qu'un montant est positif (règle métier bancaire)
+     * @param montant Le montant Money à valider
+     * @return true si > 0, false sinon
+     */
+    public static boolean isValidMontant(Money montant) {
+        return montant != null && montant.isPositive();
+    }
+    
     /**
      * Valide qu'un solde est non-négatif
      * @param solde Le solde BigDecimal à valider